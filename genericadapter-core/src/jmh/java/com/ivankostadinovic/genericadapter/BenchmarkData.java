@@ -0,0 +1,49 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the same items for every run, with names made of random syllables,
+ * so queries match a stable share of them.
+ */
+final class BenchmarkData {
+
+    static final class Item {
+        final int id;
+        final String name;
+
+        Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static final String[] SYLLABLES = {"ra", "di", "o", "ba", "ne", "ko", "sta", "vi", "lu", "me", "ta", "no"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Item> items(int count) {
+        return items(0, count, new Random(42));
+    }
+
+    static List<Item> items(int firstId, int count, Random random) {
+        List<Item> items = new ArrayList<>(count);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            name.setLength(0);
+            int syllables = 2 + random.nextInt(4);
+            for (int j = 0; j < syllables; j++) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            items.add(new Item(firstId + i, name.toString()));
+        }
+        return items;
+    }
+
+    static boolean matches(Item item, String text) {
+        return item.name.contains(text);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computing the changes between two filter results, and merging the changes of a batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiffBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<BenchmarkData.Item> items;
+    private List<BenchmarkData.Item> broadResult;
+    private List<BenchmarkData.Item> narrowResult;
+    private final CountingCallback callback = new CountingCallback();
+
+    private static final class CountingCallback implements UpdateCallback {
+        int calls;
+
+        @Override
+        public void onInserted(int position, int count) {
+            calls++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            calls++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            calls++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            calls++;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        items = ChunkedList.copyOf(BenchmarkData.items(size));
+        FilterEngine<BenchmarkData.Item> engine = new FilterEngine<>(BenchmarkData::matches);
+        broadResult = engine.filter(items, "ra");
+        narrowResult = engine.filter(items, "rad");
+    }
+
+    @Benchmark
+    public boolean narrowFilter() {
+        return FilterDiff.dispatchUpdates(items, broadResult, narrowResult, Integer.MAX_VALUE, callback);
+    }
+
+    @Benchmark
+    public boolean widenFilter() {
+        return FilterDiff.dispatchUpdates(items, narrowResult, broadResult, Integer.MAX_VALUE, callback);
+    }
+
+    @Benchmark
+    public boolean batchAdjacentChanges() {
+        UpdateBatch batch = new UpdateBatch();
+        int start = size / 2;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.onChanged(start + i, 1, null);
+            batch.onInserted(start + i, 1);
+        }
+        return batch.dispatchTo(callback);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Filtering by scanning, by scanning in parallel, and through the search index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"ra", "stavi"})
+    public String query;
+
+    private List<BenchmarkData.Item> items;
+    private FilterEngine<BenchmarkData.Item> engine;
+    private FilterEngine<BenchmarkData.Item> parallelEngine;
+    private FilterEngine<BenchmarkData.Item> indexedEngine;
+
+    @Setup
+    public void setUp() {
+        items = ChunkedList.copyOf(BenchmarkData.items(size));
+        engine = new FilterEngine<>(BenchmarkData::matches);
+        parallelEngine = new FilterEngine<>(BenchmarkData::matches);
+        parallelEngine.setParallelFiltering(1, Schedulers.computation());
+        indexedEngine = new FilterEngine<>(BenchmarkData::matches);
+        indexedEngine.setSearchKeyExtractor(item -> item.name);
+        indexedEngine.indexItems(items, Schedulers.trampoline(), Schedulers.trampoline());
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Item> scan() {
+        return engine.filter(items, query);
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Item> scanInParallel() {
+        return parallelEngine.filter(items, query);
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Item> searchIndex() {
+        return indexedEngine.filterItems(items, query);
+    }
+}
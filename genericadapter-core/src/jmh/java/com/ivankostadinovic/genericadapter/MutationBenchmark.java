@@ -0,0 +1,81 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work the adapters do for addItems, removeItem and updateItem: the ListAdapter based adapters
+ * change a snapshot of their list, and look items up by key in the position index.
+ * The benchmarks leave the list as they found it, so every invocation works on the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MutationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private ChunkedList<BenchmarkData.Item> list;
+    private List<BenchmarkData.Item> sortedList;
+    private List<BenchmarkData.Item> page;
+    private final PositionIndex<BenchmarkData.Item> positionIndex = new PositionIndex<>();
+    private final Comparator<BenchmarkData.Item> byName = (first, second) -> first.name.compareTo(second.name);
+    private final Random random = new Random(7);
+
+    @Setup
+    public void setUp() {
+        list = ChunkedList.copyOf(BenchmarkData.items(size));
+        sortedList = BenchmarkData.items(size);
+        sortedList.sort(byName);
+        page = BenchmarkData.items(size, PAGE_SIZE, new Random(11));
+        positionIndex.setKeyExtractor(item -> item.id);
+        positionIndex.indexOfKey(list, 0);
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Item> addPage() {
+        ChunkedList<BenchmarkData.Item> newList = list.snapshot();
+        newList.addAll(page);
+        return newList;
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Item> updateByKey() {
+        ChunkedList<BenchmarkData.Item> newList = list.snapshot();
+        int position = positionIndex.indexOfKey(newList, random.nextInt(size));
+        BenchmarkData.Item item = newList.get(position);
+        newList.set(position, new BenchmarkData.Item(item.id, item.name));
+        positionIndex.onChanged(position, item);
+        return newList;
+    }
+
+    @Benchmark
+    public int removeAndAddByKey() {
+        int position = positionIndex.indexOfKey(list, random.nextInt(size));
+        BenchmarkData.Item item = list.remove(position);
+        positionIndex.onRemoved(position);
+        list.add(position, item);
+        positionIndex.onInserted(list, position, 1);
+        return position;
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Item> mergeSortedPage() {
+        return SortedLists.merge(sortedList, page, byName, (position, items) -> {
+        });
+    }
+}
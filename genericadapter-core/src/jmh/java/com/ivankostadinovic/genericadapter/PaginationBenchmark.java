@@ -0,0 +1,70 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding every row of an endless list while its pages are loaded, and scrolling through
+ * a windowed list that loads and evicts pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PaginationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int PAGINATION_OFFSET = 3;
+    private static final int MAX_RESIDENT_PAGES = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<BenchmarkData.Item> items;
+    private WindowedList<BenchmarkData.Item> windowedList;
+
+    @Setup
+    public void setUp() {
+        items = BenchmarkData.items(size);
+    }
+
+    @Benchmark
+    public int loadAllPages() {
+        ChunkedList<BenchmarkData.Item> list = new ChunkedList<>();
+        Pagination pagination = new Pagination(list::size, list::size, (previous, loadedCount) -> {
+            if (loadedCount < size) {
+                list.addAll(items.subList(loadedCount, Math.min(size, loadedCount + PAGE_SIZE)));
+            }
+        });
+        list.addAll(items.subList(0, PAGE_SIZE));
+        for (int position = 0; position < list.size(); position++) {
+            pagination.onItemBound(position, PAGINATION_OFFSET);
+        }
+        return list.size();
+    }
+
+    @Benchmark
+    public int scrollWindowedList() {
+        windowedList = new WindowedList<>(PAGE_SIZE, MAX_RESIDENT_PAGES, this::loadPage);
+        windowedList.setSize(size);
+        int loaded = 0;
+        for (int position = 0; position < size; position++) {
+            if (windowedList.getShown(position) != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private void loadPage(int pageIndex, int offset, int count) {
+        windowedList.setPage(pageIndex, items.subList(offset, offset + count));
+    }
+}
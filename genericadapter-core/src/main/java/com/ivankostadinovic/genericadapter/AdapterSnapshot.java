@@ -0,0 +1,197 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The items of an adapter written to a binary file, with the query they were filtered by and the positions
+ * of the filtered items. Reading maps the file into memory and an item is only decoded when it is first
+ * accessed, so restoring a snapshot takes about as long as decoding the rows that are shown.
+ * <p>
+ * The file starts with a header that holds the item count, the filtered item count and the query,
+ * followed by the serialized items, the offset of every item, the filtered positions
+ * and finally the offset of that table, so it can be written in one pass.
+ */
+final class AdapterSnapshot<T> {
+
+    private static final int MAGIC = 0x47415331;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int NOT_FILTERED = -1;
+
+    private final List<T> items;
+    private final List<T> filteredItems;
+    private final String query;
+
+    private AdapterSnapshot(List<T> items, List<T> filteredItems, String query) {
+        this.items = items;
+        this.filteredItems = filteredItems;
+        this.query = query;
+    }
+
+    List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the filtered items, which are the same instances as in getItems, or null if none were written.
+     */
+    List<T> getFilteredItems() {
+        return filteredItems;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file that then replaces file, so a failed write keeps the previous snapshot.
+     * filteredItems have to be items of the list, in any order, pass null to only write the items.
+     */
+    static <T> void write(File file, List<T> items, String query, List<T> filteredItems, ItemSerializer<T> serializer) throws IOException {
+        int[] filteredPositions = filteredItems != null ? positionsOf(items, filteredItems) : null;
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(items.size());
+            output.writeInt(filteredPositions != null ? filteredPositions.length : NOT_FILTERED);
+            output.writeUTF(query);
+            int[] offsets = new int[items.size() + 1];
+            for (int i = 0; i < items.size(); i++) {
+                offsets[i] = output.size();
+                serializer.write(items.get(i), output);
+            }
+            int tableOffset = output.size();
+            if (tableOffset == Integer.MAX_VALUE) {
+                //DataOutputStream stops counting there, and the file could not be mapped anyway
+                throw new IOException("Snapshots are limited to 2 GB");
+            }
+            offsets[items.size()] = tableOffset;
+            for (int offset : offsets) {
+                output.writeInt(offset);
+            }
+            if (filteredPositions != null) {
+                for (int position : filteredPositions) {
+                    output.writeInt(position);
+                }
+            }
+            output.writeInt(tableOffset);
+        } catch (IOException | RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private static <T> int[] positionsOf(List<T> items, List<T> filteredItems) {
+        Map<T, Integer> positions = new IdentityHashMap<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            positions.put(items.get(i), i);
+        }
+        int[] filteredPositions = new int[filteredItems.size()];
+        for (int i = 0; i < filteredPositions.length; i++) {
+            Integer position = positions.get(filteredItems.get(i));
+            if (position == null) {
+                throw new IllegalArgumentException("Filtered item " + i + " is not one of the items");
+            }
+            filteredPositions[i] = position;
+        }
+        return filteredPositions;
+    }
+
+    static <T> AdapterSnapshot<T> read(File file, ItemSerializer<T> serializer) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+        }
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(file + " is not a snapshot of this format version");
+            }
+            int itemCount = buffer.getInt(8);
+            int filteredCount = buffer.getInt(12);
+            String query = DataInputStream.readUTF(new DataInputStream(new ByteBufferInputStream(slice(buffer, HEADER_SIZE, buffer.limit()))));
+            int tableOffset = buffer.getInt(buffer.limit() - 4);
+            //counted in longs, so a corrupt header can't overflow into a valid looking layout
+            long expectedLength = tableOffset + (itemCount + 1L) * 4 + Math.max(filteredCount, 0) * 4L + 4;
+            if (itemCount < 0 || filteredCount < NOT_FILTERED || tableOffset < HEADER_SIZE || expectedLength != buffer.limit()) {
+                throw new IOException(file + " is corrupt");
+            }
+            int positionsOffset = tableOffset + (itemCount + 1) * 4;
+            SnapshotList<T> items = new SnapshotList<>(itemCount, index -> readItem(buffer, tableOffset, index, serializer));
+            //the filtered items are looked up in a snapshot, so they stay the same when the items are changed
+            List<T> unchangedItems = items.snapshot();
+            SnapshotList<T> filteredItems = filteredCount == NOT_FILTERED
+                ? null
+                : new SnapshotList<>(filteredCount, index -> unchangedItems.get(buffer.getInt(positionsOffset + index * 4)));
+            return new AdapterSnapshot<>(items, filteredItems, query);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+    }
+
+    private static <T> T readItem(ByteBuffer buffer, int tableOffset, int index, ItemSerializer<T> serializer) {
+        int start = buffer.getInt(tableOffset + index * 4);
+        int end = buffer.getInt(tableOffset + index * 4 + 4);
+        if (start < HEADER_SIZE || end < start || end > tableOffset) {
+            throw new IllegalStateException("Item " + index + " of the snapshot is corrupt");
+        }
+        try {
+            return serializer.read(new DataInputStream(new ByteBufferInputStream(slice(buffer, start, end))));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read item " + index + " of the snapshot", e);
+        }
+    }
+
+    /**
+     * Returns a view of the bytes from start to end with its own position, so items can be read on several threads.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.limit(end);
+        return slice;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
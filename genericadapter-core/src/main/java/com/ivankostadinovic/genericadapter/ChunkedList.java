@@ -0,0 +1,254 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list stored in chunks of up to CHUNK_SIZE items that can be shared between lists.
+ * snapshot returns a copy in constant time, and a list only copies a chunk, and once the table
+ * of chunks, when it changes something in a chunk it shares. The adapters keep their items in
+ * these lists, so setItems with a ChunkedList, background filtering and the copies submitted
+ * to ListAdapter do not copy the items.
+ * A list may be read from several threads while it is not changed, and changes to a list never show in its snapshots.
+ */
+public final class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private Object[][] chunks;
+    private int[] chunkSizes;
+    private int[] chunkStarts;
+    private boolean[] ownedChunks;
+    private int chunkCount;
+    private int size;
+    private boolean tableShared;
+
+    public ChunkedList() {
+        chunks = new Object[4][];
+        chunkSizes = new int[4];
+        chunkStarts = new int[4];
+        ownedChunks = new boolean[4];
+    }
+
+    private ChunkedList(ChunkedList<T> source) {
+        chunks = source.chunks;
+        chunkSizes = source.chunkSizes;
+        chunkStarts = source.chunkStarts;
+        ownedChunks = source.ownedChunks;
+        chunkCount = source.chunkCount;
+        size = source.size;
+        tableShared = true;
+    }
+
+    /**
+     * Returns a snapshot of items if it is a ChunkedList, otherwise a new ChunkedList with the items.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ChunkedList<T> copyOf(Collection<? extends T> items) {
+        if (items instanceof ChunkedList) {
+            return ((ChunkedList<T>) items).snapshot();
+        }
+        ChunkedList<T> list = new ChunkedList<>();
+        list.addAll(items);
+        return list;
+    }
+
+    /**
+     * Returns a copy of the list in constant time. Both lists share their chunks
+     * until one of them changes them.
+     */
+    public ChunkedList<T> snapshot() {
+        tableShared = true;
+        return new ChunkedList<>(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, size);
+        int chunk = chunkOf(index);
+        return (T) chunks[chunk][index - chunkStarts[chunk]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T item) {
+        checkIndex(index, size);
+        int chunk = chunkOf(index);
+        Object[] items = writableChunk(chunk);
+        int offset = index - chunkStarts[chunk];
+        T oldItem = (T) items[offset];
+        items[offset] = item;
+        return oldItem;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        checkIndex(index, size + 1);
+        int chunk;
+        if (chunkCount == 0) {
+            chunk = insertChunk(0, new Object[CHUNK_SIZE], 0);
+        } else if (index == size) {
+            chunk = chunkCount - 1;
+        } else {
+            chunk = chunkOf(index);
+        }
+        if (chunkSizes[chunk] == CHUNK_SIZE) {
+            if (index == size) {
+                //appending starts a new chunk instead of splitting a full one
+                chunk = insertChunk(chunkCount, new Object[CHUNK_SIZE], 0);
+            } else {
+                splitChunk(chunk);
+                if (index - chunkStarts[chunk] > chunkSizes[chunk]) {
+                    chunk++;
+                }
+            }
+        }
+        Object[] items = writableChunk(chunk);
+        int offset = index - chunkStarts[chunk];
+        System.arraycopy(items, offset, items, offset + 1, chunkSizes[chunk] - offset);
+        items[offset] = item;
+        chunkSizes[chunk]++;
+        shiftStarts(chunk + 1, 1);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+        checkIndex(index, size);
+        int chunk = chunkOf(index);
+        Object[] items = writableChunk(chunk);
+        int offset = index - chunkStarts[chunk];
+        T oldItem = (T) items[offset];
+        System.arraycopy(items, offset + 1, items, offset, chunkSizes[chunk] - offset - 1);
+        items[--chunkSizes[chunk]] = null;
+        shiftStarts(chunk + 1, -1);
+        if (chunkSizes[chunk] == 0) {
+            removeChunk(chunk);
+        }
+        size--;
+        modCount++;
+        return oldItem;
+    }
+
+    @Override
+    public void clear() {
+        chunks = new Object[4][];
+        chunkSizes = new int[4];
+        chunkStarts = new int[4];
+        ownedChunks = new boolean[4];
+        chunkCount = 0;
+        size = 0;
+        tableShared = false;
+        modCount++;
+    }
+
+    private int chunkOf(int index) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunkStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the items of the chunk, copied first if the chunk is shared with another list.
+     */
+    private Object[] writableChunk(int chunk) {
+        ownTable();
+        if (!ownedChunks[chunk]) {
+            chunks[chunk] = Arrays.copyOf(chunks[chunk], CHUNK_SIZE);
+            ownedChunks[chunk] = true;
+        }
+        return chunks[chunk];
+    }
+
+    private void ownTable() {
+        if (tableShared) {
+            //the chunks stay shared, only the table that points to them is copied
+            int capacity = chunks.length;
+            chunks = Arrays.copyOf(chunks, capacity);
+            chunkSizes = Arrays.copyOf(chunkSizes, capacity);
+            chunkStarts = Arrays.copyOf(chunkStarts, capacity);
+            ownedChunks = new boolean[capacity];
+            tableShared = false;
+        }
+    }
+
+    private int insertChunk(int chunk, Object[] items, int itemCount) {
+        ownTable();
+        if (chunkCount == chunks.length) {
+            int capacity = chunkCount * 2;
+            chunks = Arrays.copyOf(chunks, capacity);
+            chunkSizes = Arrays.copyOf(chunkSizes, capacity);
+            chunkStarts = Arrays.copyOf(chunkStarts, capacity);
+            ownedChunks = Arrays.copyOf(ownedChunks, capacity);
+        }
+        int moved = chunkCount - chunk;
+        System.arraycopy(chunks, chunk, chunks, chunk + 1, moved);
+        System.arraycopy(chunkSizes, chunk, chunkSizes, chunk + 1, moved);
+        System.arraycopy(chunkStarts, chunk, chunkStarts, chunk + 1, moved);
+        System.arraycopy(ownedChunks, chunk, ownedChunks, chunk + 1, moved);
+        chunks[chunk] = items;
+        chunkSizes[chunk] = itemCount;
+        chunkStarts[chunk] = chunk > 0 ? chunkStarts[chunk - 1] + chunkSizes[chunk - 1] : 0;
+        ownedChunks[chunk] = true;
+        chunkCount++;
+        return chunk;
+    }
+
+    private void removeChunk(int chunk) {
+        ownTable();
+        int moved = chunkCount - chunk - 1;
+        System.arraycopy(chunks, chunk + 1, chunks, chunk, moved);
+        System.arraycopy(chunkSizes, chunk + 1, chunkSizes, chunk, moved);
+        System.arraycopy(chunkStarts, chunk + 1, chunkStarts, chunk, moved);
+        System.arraycopy(ownedChunks, chunk + 1, ownedChunks, chunk, moved);
+        chunkCount--;
+        chunks[chunkCount] = null;
+    }
+
+    /**
+     * Moves the second half of a full chunk into a new chunk after it.
+     */
+    private void splitChunk(int chunk) {
+        Object[] items = chunks[chunk];
+        int half = CHUNK_SIZE / 2;
+        Object[] secondHalf = new Object[CHUNK_SIZE];
+        System.arraycopy(items, half, secondHalf, 0, CHUNK_SIZE - half);
+        Object[] firstHalf = Arrays.copyOf(items, CHUNK_SIZE);
+        Arrays.fill(firstHalf, half, CHUNK_SIZE, null);
+        insertChunk(chunk + 1, secondHalf, CHUNK_SIZE - half);
+        chunks[chunk] = firstHalf;
+        ownedChunks[chunk] = true;
+        chunkSizes[chunk] = half;
+        chunkStarts[chunk + 1] = chunkStarts[chunk] + half;
+    }
+
+    private void shiftStarts(int fromChunk, int distance) {
+        for (int i = fromChunk; i < chunkCount; i++) {
+            chunkStarts[i] += distance;
+        }
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
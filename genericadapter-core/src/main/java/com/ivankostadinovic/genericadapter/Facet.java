@@ -0,0 +1,9 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * A named condition that the filter adapters check on top of the text filter,
+ * for example a genre or a favorites toggle.
+ */
+public interface Facet<T> {
+    boolean matches(T item);
+}
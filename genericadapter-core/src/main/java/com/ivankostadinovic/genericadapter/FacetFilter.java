@@ -0,0 +1,206 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps one bit set per facet with a bit for every list position whose item matches it.
+ * Facets of the same group are combined with OR and the groups with AND, so changing a facet
+ * only rescans the list for that facet, and the visible items follow from a few bitwise operations.
+ * The bit sets are shifted with the list when items are inserted or removed.
+ */
+final class FacetFilter<T> {
+
+    private static class FacetEntry<T> {
+        private final String group;
+        private final Facet<T> facet;
+        private final BitSet matches;
+
+        private FacetEntry(String group, Facet<T> facet, BitSet matches) {
+            this.group = group;
+            this.facet = facet;
+            this.matches = matches;
+        }
+    }
+
+    private final LinkedHashMap<String, FacetEntry<T>> facets = new LinkedHashMap<>();
+    private BitSet combinedMatches;
+    //the facets ordered by group and the end of every group in that order, so matches allocates nothing
+    private Facet<T>[] groupedFacets;
+    private int[] groupEnds;
+
+    boolean isEmpty() {
+        return facets.isEmpty();
+    }
+
+    void set(String name, String group, Facet<T> facet, List<T> items) {
+        facets.put(name, new FacetEntry<>(group, facet, computeMatches(facet, items)));
+        combinedMatches = null;
+        groupedFacets = null;
+    }
+
+    void remove(String name) {
+        facets.remove(name);
+        combinedMatches = null;
+        groupedFacets = null;
+    }
+
+    void rebuild(List<T> items) {
+        for (Map.Entry<String, FacetEntry<T>> entry : facets.entrySet()) {
+            FacetEntry<T> facetEntry = entry.getValue();
+            entry.setValue(new FacetEntry<>(facetEntry.group, facetEntry.facet, computeMatches(facetEntry.facet, items)));
+        }
+        combinedMatches = null;
+    }
+
+    void onItemsInserted(int position, List<T> items) {
+        for (FacetEntry<T> facetEntry : facets.values()) {
+            shift(facetEntry.matches, position, items.size());
+            for (int i = 0; i < items.size(); i++) {
+                if (facetEntry.facet.matches(items.get(i))) {
+                    facetEntry.matches.set(position + i);
+                }
+            }
+        }
+        combinedMatches = null;
+    }
+
+    void onItemRemoved(int position) {
+        for (FacetEntry<T> facetEntry : facets.values()) {
+            shift(facetEntry.matches, position + 1, -1);
+        }
+        combinedMatches = null;
+    }
+
+    void onItemChanged(int position, T item) {
+        for (FacetEntry<T> facetEntry : facets.values()) {
+            facetEntry.matches.set(position, facetEntry.facet.matches(item));
+        }
+        combinedMatches = null;
+    }
+
+    /**
+     * Checks the facets on the item itself, for items that are not in the list yet.
+     */
+    boolean matches(T item) {
+        if (facets.isEmpty()) {
+            return true;
+        }
+        if (groupedFacets == null) {
+            groupFacets();
+        }
+        int groupStart = 0;
+        for (int groupEnd : groupEnds) {
+            boolean groupMatch = false;
+            for (int i = groupStart; i < groupEnd && !groupMatch; i++) {
+                groupMatch = groupedFacets[i].matches(item);
+            }
+            if (!groupMatch) {
+                return false;
+            }
+            groupStart = groupEnd;
+        }
+        return true;
+    }
+
+    private void groupFacets() {
+        LinkedHashMap<String, List<Facet<T>>> facetsByGroup = new LinkedHashMap<>();
+        for (FacetEntry<T> facetEntry : facets.values()) {
+            List<Facet<T>> groupFacets = facetsByGroup.get(facetEntry.group);
+            if (groupFacets == null) {
+                groupFacets = new ArrayList<>();
+                facetsByGroup.put(facetEntry.group, groupFacets);
+            }
+            groupFacets.add(facetEntry.facet);
+        }
+        @SuppressWarnings("unchecked")
+        Facet<T>[] grouped = (Facet<T>[]) new Facet<?>[facets.size()];
+        int[] ends = new int[facetsByGroup.size()];
+        int position = 0;
+        int group = 0;
+        for (List<Facet<T>> groupFacets : facetsByGroup.values()) {
+            for (Facet<T> facet : groupFacets) {
+                grouped[position++] = facet;
+            }
+            ends[group++] = position;
+        }
+        groupEnds = ends;
+        groupedFacets = grouped;
+    }
+
+    /**
+     * Returns the items of result that match the facets. The result has to be a subsequence of items,
+     * as the filter results are, and the bit sets have to be up to date with items.
+     */
+    List<T> retainMatches(List<T> items, List<T> result) {
+        if (facets.isEmpty()) {
+            return result;
+        }
+        BitSet mask = getCombinedMatches();
+        List<T> retained = new ChunkedList<>();
+        int resultPosition = 0;
+        for (int i = 0, size = items.size(); i < size && resultPosition < result.size(); i++) {
+            T item = result.get(resultPosition);
+            if (items.get(i) == item) {
+                if (mask.get(i)) {
+                    retained.add(item);
+                }
+                resultPosition++;
+            }
+        }
+        return retained;
+    }
+
+    private BitSet getCombinedMatches() {
+        if (combinedMatches == null) {
+            Map<String, BitSet> groupMatches = new LinkedHashMap<>();
+            for (FacetEntry<T> facetEntry : facets.values()) {
+                BitSet groupMatch = groupMatches.get(facetEntry.group);
+                if (groupMatch == null) {
+                    groupMatches.put(facetEntry.group, (BitSet) facetEntry.matches.clone());
+                } else {
+                    groupMatch.or(facetEntry.matches);
+                }
+            }
+            BitSet combined = null;
+            for (BitSet groupMatch : groupMatches.values()) {
+                if (combined == null) {
+                    combined = groupMatch;
+                } else {
+                    combined.and(groupMatch);
+                }
+            }
+            combinedMatches = combined;
+        }
+        return combinedMatches;
+    }
+
+    private static <T> BitSet computeMatches(Facet<T> facet, List<T> items) {
+        BitSet matches = new BitSet(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (facet.matches(items.get(i))) {
+                matches.set(i);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Moves the bits from position on by distance, which is negative when items were removed.
+     */
+    private static void shift(BitSet bits, int position, int distance) {
+        int length = bits.length();
+        int clearFrom = Math.min(position, position + distance);
+        if (clearFrom >= length) {
+            return;
+        }
+        BitSet tail = position < length ? bits.get(position, length) : new BitSet();
+        bits.clear(clearFrom, length);
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            bits.set(position + distance + i);
+        }
+    }
+}
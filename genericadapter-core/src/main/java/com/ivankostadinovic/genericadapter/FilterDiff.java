@@ -0,0 +1,94 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.List;
+
+/**
+ * Computes the changes between two filter results of the same list.
+ * Both results keep the order of the list, so one walk over the list tells which items
+ * were filtered out and which came back, without running a general diff.
+ */
+final class FilterDiff {
+
+    private FilterDiff() {
+    }
+
+    /**
+     * Dispatches the removed and inserted ranges that turn oldResult into newResult.
+     * Nothing is dispatched and false is returned when either result is not a subsequence of items,
+     * or when more than maxRanges ranges would be needed, in which case the caller should
+     * refresh the whole list instead.
+     */
+    static <T> boolean dispatchUpdates(List<T> items, List<T> oldResult, List<T> newResult, int maxRanges, UpdateCallback callback) {
+        int ranges = walk(items, oldResult, newResult, null);
+        if (ranges < 0 || ranges > maxRanges) {
+            return false;
+        }
+        walk(items, oldResult, newResult, callback);
+        return true;
+    }
+
+    /**
+     * Returns the number of ranges, or -1 if the results are not subsequences of items.
+     * The ranges are only dispatched when a callback is given.
+     */
+    private static <T> int walk(List<T> items, List<T> oldResult, List<T> newResult, UpdateCallback callback) {
+        int oldSize = oldResult.size();
+        int newSize = newResult.size();
+        int oldIndex = 0;
+        int newIndex = 0;
+        int position = 0;
+        int ranges = 0;
+        boolean removing = false;
+        int rangeStart = 0;
+        int rangeCount = 0;
+        for (int i = 0, size = items.size(); i < size && (oldIndex < oldSize || newIndex < newSize); i++) {
+            T item = items.get(i);
+            boolean inOld = oldIndex < oldSize && oldResult.get(oldIndex) == item;
+            boolean inNew = newIndex < newSize && newResult.get(newIndex) == item;
+            if (inOld) {
+                oldIndex++;
+            }
+            if (inNew) {
+                newIndex++;
+            }
+            if (inOld == inNew) {
+                if (inOld) {
+                    position++;
+                }
+                continue;
+            }
+            boolean removal = inOld;
+            boolean extendsRange = rangeCount > 0 && removing == removal
+                && (removal ? rangeStart == position : rangeStart + rangeCount == position);
+            if (!extendsRange) {
+                dispatch(callback, removing, rangeStart, rangeCount);
+                if (rangeCount > 0) {
+                    ranges++;
+                }
+                removing = removal;
+                rangeStart = position;
+                rangeCount = 0;
+            }
+            rangeCount++;
+            if (!removal) {
+                position++;
+            }
+        }
+        if (oldIndex < oldSize || newIndex < newSize) {
+            return -1;
+        }
+        dispatch(callback, removing, rangeStart, rangeCount);
+        return rangeCount > 0 ? ranges + 1 : ranges;
+    }
+
+    private static void dispatch(UpdateCallback callback, boolean removing, int start, int count) {
+        if (callback == null || count == 0) {
+            return;
+        }
+        if (removing) {
+            callback.onRemoved(start, count);
+        } else {
+            callback.onInserted(start, count);
+        }
+    }
+}
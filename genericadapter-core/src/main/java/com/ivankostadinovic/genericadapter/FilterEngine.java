@@ -0,0 +1,369 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Runs the filter predicate of the filter adapters over a list of items.
+ * It holds no Android state, so results can be computed on a background scheduler
+ * and handed back to the adapter on the main thread.
+ * The result cache and the search index are not synchronized and are only touched from the main thread.
+ */
+class FilterEngine<T> {
+
+    interface Predicate<T> {
+        boolean test(T item, String text);
+    }
+
+    interface CancellationSignal {
+        boolean isCancelled();
+    }
+
+    private interface IndexOperation<T> {
+        void apply(SearchIndex<T> index);
+    }
+
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+    private static final int BACKGROUND_INDEX_THRESHOLD = 5000;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final CancellationSignal NOT_CANCELLABLE = () -> false;
+
+    private final Predicate<T> predicate;
+    private final LinkedHashMap<String, List<T>> resultCache = new LinkedHashMap<String, List<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<T>> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private int cacheSize;
+    private SearchKeyExtractor<T> keyExtractor;
+    private SearchIndex<T> index;
+    private volatile NormalizedKeys<T> normalizedKeys;
+    private Disposable indexBuild;
+    private final List<IndexOperation<T>> pendingIndexOperations = new ArrayList<>();
+    private final FacetFilter<T> facets = new FacetFilter<>();
+    private boolean facetsStale;
+    private volatile int parallelThreshold;
+    private volatile Scheduler parallelScheduler = Schedulers.computation();
+
+    FilterEngine(Predicate<T> predicate) {
+        this.predicate = predicate;
+    }
+
+    void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+        resultCache.clear();
+    }
+
+    /**
+     * Lists with at least threshold items are split into chunks that are filtered on the scheduler
+     * and on the calling thread at the same time. Pass 0 to filter on the calling thread only.
+     */
+    void setParallelFiltering(int threshold, Scheduler scheduler) {
+        this.parallelThreshold = threshold;
+        this.parallelScheduler = scheduler;
+    }
+
+    void invalidateCache() {
+        resultCache.clear();
+    }
+
+    List<T> getCachedResult(String text) {
+        return resultCache.get(text);
+    }
+
+    void cacheResult(String text, List<T> result) {
+        if (cacheSize > 0) {
+            resultCache.put(text, result);
+        }
+    }
+
+    /**
+     * Returns the items the text has to be checked against. When a cached query is a prefix
+     * of the text, only its results can match, so the longest such result is returned
+     * instead of all the items.
+     */
+    List<T> getCandidates(List<T> items, String text) {
+        String narrowestQuery = null;
+        for (String query : resultCache.keySet()) {
+            if (text.startsWith(query) && (narrowestQuery == null || query.length() > narrowestQuery.length())) {
+                narrowestQuery = query;
+            }
+        }
+        return narrowestQuery == null ? items : resultCache.get(narrowestQuery);
+    }
+
+    void setSearchKeyExtractor(SearchKeyExtractor<T> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        normalizedKeys = null;
+        resultCache.clear();
+    }
+
+    void setFacet(String name, String group, Facet<T> facet, List<T> items) {
+        buildFacets(items);
+        facets.set(name, group, facet, items);
+    }
+
+    void removeFacet(String name) {
+        facets.remove(name);
+    }
+
+    private void buildFacets(List<T> items) {
+        if (facetsStale) {
+            facets.rebuild(items);
+            facetsStale = false;
+        }
+    }
+
+    /**
+     * Returns the items of a filter result of items that also match the facets.
+     */
+    List<T> retainFacetMatches(List<T> items, List<T> result) {
+        if (facets.isEmpty()) {
+            return result;
+        }
+        buildFacets(items);
+        return facets.retainMatches(items, result);
+    }
+
+    /**
+     * Ranks the items by the scorer instead of filtering them. The facets have to be applied to the items first.
+     */
+    Ranking<T> rank(List<T> items, String text, ItemScorer<T> scorer, int limit) {
+        return rank(items, text, scorer, limit, NOT_CANCELLABLE);
+    }
+
+    Ranking<T> rank(List<T> items, String text, ItemScorer<T> scorer, int limit, CancellationSignal signal) {
+        return Ranking.rank(items, text, scorer, limit, signal);
+    }
+
+    /**
+     * Returns the items that match both the text and the facets.
+     */
+    List<T> filterWithFacets(List<T> items, String text) {
+        List<T> result = filter(items, text);
+        if (facets.isEmpty()) {
+            return result;
+        }
+        List<T> facetMatches = new ChunkedList<>();
+        for (T item : result) {
+            if (facets.matches(item)) {
+                facetMatches.add(item);
+            }
+        }
+        return facetMatches;
+    }
+
+    boolean isIndexReady() {
+        return index != null;
+    }
+
+    /**
+     * Indexes the items by their search keys and facets. Large lists and restored snapshots are indexed
+     * on the work scheduler, changes made in the meantime are queued and applied once the index is delivered
+     * on the result scheduler. Until then, queries fall back to scanning the keys, which share the normalized keys
+     * with the build, so every key is normalized only once.
+     */
+    void indexItems(List<T> items, Scheduler workScheduler, Scheduler resultScheduler) {
+        //the facets are built when they are first needed, so restoring a snapshot does not read every item up front
+        facetsStale = true;
+        if (indexBuild != null) {
+            indexBuild.dispose();
+            indexBuild = null;
+        }
+        pendingIndexOperations.clear();
+        index = null;
+        normalizedKeys = null;
+        if (keyExtractor == null) {
+            return;
+        }
+        SearchKeyExtractor<T> extractor = keyExtractor;
+        if (items.size() < BACKGROUND_INDEX_THRESHOLD && !(items instanceof SnapshotList)) {
+            index = new SearchIndex<>(extractor, items);
+            return;
+        }
+        List<T> snapshot = SnapshotList.snapshotOf(items);
+        NormalizedKeys<T> keys = new NormalizedKeys<>();
+        normalizedKeys = keys;
+        indexBuild = Single.fromCallable(() -> new SearchIndex<>(extractor, snapshot, keys))
+            .subscribeOn(workScheduler)
+            .observeOn(resultScheduler)
+            .subscribe(builtIndex -> {
+                for (IndexOperation<T> operation : pendingIndexOperations) {
+                    operation.apply(builtIndex);
+                }
+                pendingIndexOperations.clear();
+                index = builtIndex;
+                indexBuild = null;
+                //the index holds the keys from now on
+                normalizedKeys = null;
+            });
+    }
+
+    void onItemsInserted(int position, List<T> items) {
+        List<T> insertedItems = new ArrayList<>(items);
+        if (!facetsStale) {
+            facets.onItemsInserted(position, insertedItems);
+        }
+        updateIndex(searchIndex -> searchIndex.insert(position, insertedItems));
+    }
+
+    void onItemRemoved(int position) {
+        if (!facetsStale) {
+            facets.onItemRemoved(position);
+        }
+        updateIndex(searchIndex -> searchIndex.remove(position));
+    }
+
+    void onItemChanged(int position, T item) {
+        NormalizedKeys<T> keys = normalizedKeys;
+        if (keys != null) {
+            keys.remove(item);
+        }
+        if (!facetsStale) {
+            facets.onItemChanged(position, item);
+        }
+        updateIndex(searchIndex -> searchIndex.set(position, item));
+    }
+
+    private void updateIndex(IndexOperation<T> operation) {
+        if (index != null) {
+            operation.apply(index);
+        } else if (indexBuild != null) {
+            pendingIndexOperations.add(operation);
+        }
+    }
+
+    /**
+     * Returns the items matching the text, looked up in the index when it is ready,
+     * otherwise taken from the cache or computed incrementally from it.
+     */
+    List<T> filterItems(List<T> items, String text) {
+        if (index != null) {
+            return index.search(text);
+        }
+        List<T> result = getCachedResult(text);
+        if (result == null) {
+            result = filter(getCandidates(items, text), text);
+            cacheResult(text, result);
+        }
+        return result;
+    }
+
+    List<T> filter(List<T> items, String text) {
+        return filter(items, text, NOT_CANCELLABLE);
+    }
+
+    /**
+     * Returns the items matching the text in their original order,
+     * or null if the signal got cancelled before the whole list was checked.
+     */
+    List<T> filter(List<T> items, String text, CancellationSignal signal) {
+        int threshold = parallelThreshold;
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threshold > 0 && items.size() >= threshold && threads > 1) {
+            return filterInParallel(items, text, signal, threads);
+        }
+        return filterRange(items, 0, items.size(), text, signal);
+    }
+
+    /**
+     * Threads take the next unclaimed chunk until none are left, and the calling thread takes
+     * chunks as well, so the result is complete even if the scheduler never runs the helpers.
+     * The chunk results are concatenated in chunk order, which keeps the original order.
+     */
+    private List<T> filterInParallel(List<T> items, String text, CancellationSignal signal, int threads) {
+        int size = items.size();
+        int chunkSize = Math.max(CANCELLATION_CHECK_INTERVAL, size / (threads * CHUNKS_PER_THREAD) + 1);
+        int chunkCount = (size + chunkSize - 1) / chunkSize;
+        List<List<T>> chunkResults = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunkResults.add(null);
+        }
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CountDownLatch chunksDone = new CountDownLatch(chunkCount);
+        CancellationSignal chunkSignal = () -> cancelled.get() || signal.isCancelled();
+        Runnable worker = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                int start = chunk * chunkSize;
+                List<T> chunkResult = chunkSignal.isCancelled()
+                    ? null
+                    : filterRange(items, start, Math.min(start + chunkSize, size), text, chunkSignal);
+                if (chunkResult == null) {
+                    cancelled.set(true);
+                } else {
+                    chunkResults.set(chunk, chunkResult);
+                }
+                chunksDone.countDown();
+            }
+        };
+        Scheduler scheduler = parallelScheduler;
+        for (int i = 1; i < Math.min(threads, chunkCount); i++) {
+            scheduler.scheduleDirect(worker);
+        }
+        worker.run();
+        try {
+            chunksDone.await();
+        } catch (InterruptedException e) {
+            //the subscription was disposed while the helpers were finishing their chunks
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (cancelled.get()) {
+            return null;
+        }
+        //the latch makes the chunk results written by the helpers visible here
+        List<T> result = new ChunkedList<>();
+        for (List<T> chunkResult : chunkResults) {
+            result.addAll(chunkResult);
+        }
+        return result;
+    }
+
+    private List<T> filterRange(List<T> items, int start, int end, String text, CancellationSignal signal) {
+        SearchKeyExtractor<T> extractor = keyExtractor;
+        String normalizedText = extractor != null ? SearchIndex.normalize(text) : text;
+        NormalizedKeys<T> keys = normalizedKeys;
+        List<T> result = new ChunkedList<>();
+        for (int i = start; i < end; i++) {
+            if ((i - start) % CANCELLATION_CHECK_INTERVAL == 0 && signal.isCancelled()) {
+                return null;
+            }
+            T item = items.get(i);
+            boolean matches = keys != null && extractor != null
+                ? keys.get(item, extractor).contains(normalizedText)
+                : matches(item, text, normalizedText, extractor);
+            if (matches) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the item matches both the text and the facets.
+     */
+    boolean matches(T item, String text) {
+        SearchKeyExtractor<T> extractor = keyExtractor;
+        return matches(item, text, extractor != null ? SearchIndex.normalize(text) : text, extractor) && facets.matches(item);
+    }
+
+    private boolean matches(T item, String text, String normalizedText, SearchKeyExtractor<T> extractor) {
+        return extractor != null
+            ? SearchIndex.normalize(extractor.getSearchKey(item)).contains(normalizedText)
+            : predicate.test(item, text);
+    }
+}
@@ -0,0 +1,166 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.List;
+
+/**
+ * Tells in logarithmic time at which position of a filter result an item of the list belongs,
+ * which is the number of shown items that come before it in the list.
+ * Like PositionIndex, every item of the list has a slot, slots are ordered like the list and are spread
+ * over every other slot when the index is built. One Fenwick tree counts the slots in use and another one
+ * the slots of items that are in the filter result. When there is no free slot left, or when most slots
+ * were freed, the index is rebuilt from the list and the filter result on the next lookup.
+ */
+class FilterRankIndex {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int SLOT_SPREAD = 2;
+
+    private boolean[] shownSlots = new boolean[0];
+    private int[] usedTree = new int[1];
+    private int[] shownTree = new int[1];
+    private int size;
+    private int removedCount;
+    private boolean valid;
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns the position in result at which the item at itemPosition of items belongs.
+     * Items appended at the end of items belong at the end of result without a lookup.
+     */
+    <T> int positionInResult(List<T> items, List<T> result, int itemPosition) {
+        if (itemPosition >= items.size() - 1) {
+            return result.size();
+        }
+        if (!valid) {
+            rebuild(items, result);
+        }
+        int position = itemPosition < size ? count(shownTree, findSlot(itemPosition) - 1) : count(shownTree, shownSlots.length - 1);
+        //ranked results are not a subsequence of items, never point past their end
+        return Math.min(position, result.size());
+    }
+
+    void onInserted(int position, boolean shown) {
+        if (!valid) {
+            return;
+        }
+        int previousSlot = position > 0 ? findSlot(position - 1) : -1;
+        boolean appending = position == size;
+        int nextSlot = appending ? shownSlots.length : findSlot(position);
+        int gap = nextSlot - previousSlot;
+        if (gap <= 1) {
+            valid = false;
+            return;
+        }
+        int slot = appending ? previousSlot + 1 : previousSlot + gap / 2;
+        add(usedTree, slot, 1);
+        if (shown) {
+            shownSlots[slot] = true;
+            add(shownTree, slot, 1);
+        }
+        size++;
+    }
+
+    /**
+     * Appends the items, the ones in shownItems are marked as shown. shownItems must be a subsequence of items.
+     */
+    <T> void onAppended(List<T> items, List<T> shownItems) {
+        int shownIndex = 0;
+        for (int i = 0, count = items.size(); i < count && valid; i++) {
+            boolean shown = shownIndex < shownItems.size() && shownItems.get(shownIndex) == items.get(i);
+            if (shown) {
+                shownIndex++;
+            }
+            onInserted(size, shown);
+        }
+    }
+
+    void onRemoved(int position) {
+        if (!valid) {
+            return;
+        }
+        int slot = findSlot(position);
+        add(usedTree, slot, -1);
+        if (shownSlots[slot]) {
+            shownSlots[slot] = false;
+            add(shownTree, slot, -1);
+        }
+        size--;
+        if (++removedCount > Math.max(size, MIN_CAPACITY)) {
+            //mostly freed slots left, compact on the next lookup
+            valid = false;
+        }
+    }
+
+    void setShown(int position, boolean shown) {
+        if (!valid) {
+            return;
+        }
+        int slot = findSlot(position);
+        if (shownSlots[slot] != shown) {
+            shownSlots[slot] = shown;
+            add(shownTree, slot, shown ? 1 : -1);
+        }
+    }
+
+    private <T> void rebuild(List<T> items, List<T> result) {
+        int count = items.size();
+        int capacity = Math.max(MIN_CAPACITY, count * (SLOT_SPREAD + 1));
+        shownSlots = new boolean[capacity];
+        usedTree = new int[capacity + 1];
+        shownTree = new int[capacity + 1];
+        int resultIndex = 0;
+        int resultSize = result.size();
+        for (int i = 0; i < count; i++) {
+            int slot = i * SLOT_SPREAD;
+            usedTree[slot + 1] = 1;
+            if (resultIndex < resultSize && result.get(resultIndex) == items.get(i)) {
+                resultIndex++;
+                shownSlots[slot] = true;
+                shownTree[slot + 1] = 1;
+            }
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                usedTree[parent] += usedTree[i];
+                shownTree[parent] += shownTree[i];
+            }
+        }
+        size = count;
+        removedCount = 0;
+        valid = true;
+    }
+
+    private static void add(int[] tree, int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private static int count(int[] tree, int lastSlot) {
+        int count = 0;
+        for (int i = lastSlot + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the slot of the item at the position, the slot where the used slot count reaches position + 1.
+     */
+    private int findSlot(int position) {
+        int slot = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(usedTree.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < usedTree.length && usedTree[next] < remaining) {
+                slot = next;
+                remaining -= usedTree[next];
+            }
+        }
+        return slot;
+    }
+}
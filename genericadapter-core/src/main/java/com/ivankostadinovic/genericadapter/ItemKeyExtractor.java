@@ -0,0 +1,9 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Returns a key that identifies an item, for example its id. Keys have to be unique
+ * and should implement equals and hashCode.
+ */
+public interface ItemKeyExtractor<T> {
+    Object getItemKey(T item);
+}
@@ -0,0 +1,12 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Scores how well an item matches a query, for showing the best matches first.
+ */
+public interface ItemScorer<T> {
+    /**
+     * Returns the score of the item, higher is better, or 0 if it does not match.
+     * The matched characters can be added to matchRanges, to highlight them when the item is bound.
+     */
+    float score(T item, String query, MatchRanges matchRanges);
+}
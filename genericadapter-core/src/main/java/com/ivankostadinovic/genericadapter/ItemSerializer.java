@@ -0,0 +1,15 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes items to adapter snapshots and reads them back. read has to consume exactly what write wrote,
+ * and is called on whichever thread first accesses the item.
+ */
+public interface ItemSerializer<T> {
+    void write(T item, DataOutput output) throws IOException;
+
+    T read(DataInput input) throws IOException;
+}
@@ -0,0 +1,51 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.Arrays;
+
+/**
+ * The character ranges of a search key that matched a query, in order. Adjacent ranges are joined.
+ */
+public final class MatchRanges {
+
+    private int[] bounds = new int[8];
+    private int size;
+
+    /**
+     * Adds the range from start to end, exclusive.
+     */
+    public void add(int start, int end) {
+        if (size > 0 && bounds[size * 2 - 1] == start) {
+            bounds[size * 2 - 1] = end;
+            return;
+        }
+        if (size * 2 == bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[size * 2] = start;
+        bounds[size * 2 + 1] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getStart(int index) {
+        return bounds[index * 2];
+    }
+
+    public int getEnd(int index) {
+        return bounds[index * 2 + 1];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    MatchRanges copy() {
+        MatchRanges copy = new MatchRanges();
+        copy.bounds = Arrays.copyOf(bounds, Math.max(2, size * 2));
+        copy.size = size;
+        return copy;
+    }
+}
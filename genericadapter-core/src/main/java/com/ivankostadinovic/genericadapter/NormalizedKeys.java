@@ -0,0 +1,53 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Remembers the normalized search keys of items by identity, so the scans that run while the search index
+ * is built do not normalize every key again for every query. The keys are spread over several maps by
+ * identity hash, each one locked on its own, so the threads of a parallel filter rarely wait for each other.
+ */
+final class NormalizedKeys<T> {
+
+    private static final int STRIPES = 16;
+
+    private final IdentityHashMap<T, String>[] stripes;
+
+    NormalizedKeys() {
+        @SuppressWarnings("unchecked")
+        IdentityHashMap<T, String>[] stripes = (IdentityHashMap<T, String>[]) new IdentityHashMap<?, ?>[STRIPES];
+        this.stripes = stripes;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new IdentityHashMap<>();
+        }
+    }
+
+    String get(T item, SearchKeyExtractor<T> extractor) {
+        IdentityHashMap<T, String> stripe = stripeOf(item);
+        String key;
+        synchronized (stripe) {
+            key = stripe.get(item);
+        }
+        if (key == null) {
+            key = SearchIndex.normalize(extractor.getSearchKey(item));
+            synchronized (stripe) {
+                stripe.put(item, key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Forgets the key of an item that was changed in place.
+     */
+    void remove(T item) {
+        IdentityHashMap<T, String> stripe = stripeOf(item);
+        synchronized (stripe) {
+            stripe.remove(item);
+        }
+    }
+
+    private IdentityHashMap<T, String> stripeOf(T item) {
+        return stripes[System.identityHashCode(item) & (STRIPES - 1)];
+    }
+}
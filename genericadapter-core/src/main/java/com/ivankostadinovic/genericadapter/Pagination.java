@@ -0,0 +1,239 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Decides when the adapters ask for the next page. A page is requested when the row at the
+ * pagination offset from the end is bound, or when scrolling reaches or skips past it, so flings
+ * and jumps that skip rows still load. Lists that are shorter than the offset do not request pages.
+ * While a filter hides some of the loaded items, no pages are requested, since the shown rows
+ * and the loaded items are different lists.
+ * The offset grows with the scroll speed, a page is only requested once for the same
+ * number of loaded items, and no new page is requested while one is loading.
+ * A page counts as loaded as soon as items are added, adding no items marks the end of the list
+ * in the direction of the loading page. completePage and failPage report pages that brought
+ * no items or failed.
+ */
+public final class Pagination {
+
+    public enum State {
+        IDLE, LOADING, ERROR, END_REACHED
+    }
+
+    interface PageLoader {
+        void loadPage(boolean previous, int loadedCount);
+    }
+
+    interface Count {
+        int get();
+    }
+
+    public static final long DEFAULT_RETRY_DELAY_MILLIS = 2000;
+    public static final long DEFAULT_PREFETCH_LOOKAHEAD_MILLIS = 300;
+    public static final int DEFAULT_MAX_PREFETCH_ROWS = 30;
+
+    private static final int NO_POSITION = -1;
+
+    private final Count itemCount;
+    private final Count loadedCount;
+    private final PageLoader pageLoader;
+    private State state = State.IDLE;
+    private boolean loadingPrevious;
+    private boolean endReached;
+    private boolean startReached;
+    private boolean loadPrevious;
+    private int requestedCount = -1;
+    private int requestedPreviousCount = -1;
+    private long failedAt;
+    private long retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+    private long prefetchLookaheadMillis = DEFAULT_PREFETCH_LOOKAHEAD_MILLIS;
+    private int maxPrefetchRows = DEFAULT_MAX_PREFETCH_ROWS;
+    private int paginationOffset;
+    private int lastScrollPosition = NO_POSITION;
+    private long lastScrollTime;
+    private float rowsPerMilli;
+
+    /**
+     * itemCount is the number of shown rows, loadedCount the number of loaded items,
+     * which differ when the rows are filtered.
+     */
+    Pagination(Count itemCount, Count loadedCount, PageLoader pageLoader) {
+        this.itemCount = itemCount;
+        this.loadedCount = loadedCount;
+        this.pageLoader = pageLoader;
+    }
+
+    public State getState() {
+        if (state == State.IDLE && endReached) {
+            return State.END_REACHED;
+        }
+        return state;
+    }
+
+    /**
+     * Marks the loading page as done. Only needed for pages that added no items,
+     * pages that add items are completed by adding them.
+     */
+    public void completePage() {
+        if (state == State.LOADING) {
+            state = State.IDLE;
+        }
+    }
+
+    /**
+     * Marks the loading page as done, and the last page in its direction if reachedEnd is true.
+     */
+    public void completePage(boolean reachedEnd) {
+        if (state == State.LOADING && reachedEnd) {
+            if (loadingPrevious) {
+                startReached = true;
+            } else {
+                endReached = true;
+            }
+        }
+        completePage();
+    }
+
+    /**
+     * Marks the loading page as failed. It is requested again once the retry delay passed
+     * and the user scrolls, or right away by retry.
+     */
+    public void failPage() {
+        if (state == State.LOADING) {
+            state = State.ERROR;
+            failedAt = uptimeMillis();
+        }
+    }
+
+    public void retry() {
+        if (state == State.ERROR) {
+            requestPage(loadingPrevious);
+        }
+    }
+
+    public void setEndReached(boolean endReached) {
+        this.endReached = endReached;
+    }
+
+    public void setStartReached(boolean startReached) {
+        this.startReached = startReached;
+    }
+
+    /**
+     * Also requests pages before the first item, through loadPreviousItems, when one of the first
+     * rows is shown. Call setStartReached once there is nothing more to load in that direction.
+     */
+    public void setLoadPrevious(boolean loadPrevious) {
+        this.loadPrevious = loadPrevious;
+    }
+
+    public void setRetryDelay(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * While scrolling, the pagination offset grows by the number of rows scrolled within lookaheadMillis,
+     * up to maxRows. Pass 0 to only use the pagination offset.
+     */
+    public void setVelocityPrefetch(long lookaheadMillis, int maxRows) {
+        this.prefetchLookaheadMillis = lookaheadMillis;
+        this.maxPrefetchRows = maxRows;
+    }
+
+    /**
+     * Forgets the requested pages, errors and ends, for when the items are replaced.
+     */
+    public void reset() {
+        state = State.IDLE;
+        endReached = false;
+        startReached = false;
+        requestedCount = -1;
+        requestedPreviousCount = -1;
+    }
+
+    /**
+     * An empty page leaves nothing to bind or scroll to, so it ends the pages in its direction right away.
+     */
+    void onItemsAdded(int count) {
+        if (count == 0) {
+            completePage(true);
+        }
+    }
+
+    void onItemBound(int position, int paginationOffset) {
+        this.paginationOffset = paginationOffset;
+        if (!canRequestPage() || isFiltered()) {
+            return;
+        }
+        if (!endReached && position == itemCount.get() - paginationOffset) {
+            requestPage(false);
+        } else if (loadPrevious && !startReached && position == paginationOffset - 1) {
+            requestPage(true);
+        }
+    }
+
+    /**
+     * Called while scrolling with the first and last shown rows.
+     */
+    void onScrolled(int first, int last) {
+        long now = uptimeMillis();
+        if (lastScrollPosition != NO_POSITION && now > lastScrollTime) {
+            float currentRowsPerMilli = (float) Math.abs(last - lastScrollPosition) / (now - lastScrollTime);
+            rowsPerMilli = (rowsPerMilli + currentRowsPerMilli) / 2;
+        }
+        lastScrollPosition = last;
+        lastScrollTime = now;
+        if (!canRequestPage() || isFiltered()) {
+            return;
+        }
+        int window = paginationOffset + Math.min(maxPrefetchRows, (int) (rowsPerMilli * prefetchLookaheadMillis));
+        int count = itemCount.get();
+        if (count < window) {
+            return;
+        }
+        if (!endReached && last >= count - window) {
+            requestPage(false);
+        } else if (loadPrevious && !startReached && first < window) {
+            requestPage(true);
+        }
+    }
+
+    void onScrollStopped() {
+        rowsPerMilli = 0;
+        lastScrollPosition = NO_POSITION;
+    }
+
+    private boolean canRequestPage() {
+        if (state == State.LOADING) {
+            if (loadedCount.get() == (loadingPrevious ? requestedPreviousCount : requestedCount)) {
+                return false;
+            }
+            //the requested items arrived
+            state = State.IDLE;
+        }
+        return state != State.ERROR || uptimeMillis() - failedAt >= retryDelayMillis;
+    }
+
+    private boolean isFiltered() {
+        return itemCount.get() != loadedCount.get();
+    }
+
+    private void requestPage(boolean previous) {
+        int count = loadedCount.get();
+        boolean retrying = state == State.ERROR && loadingPrevious == previous;
+        if (!retrying && count == (previous ? requestedPreviousCount : requestedCount)) {
+            //this page was already requested
+            return;
+        }
+        if (previous) {
+            requestedPreviousCount = count;
+        } else {
+            requestedCount = count;
+        }
+        state = State.LOADING;
+        loadingPrevious = previous;
+        pageLoader.loadPage(previous, count);
+    }
+
+    private static long uptimeMillis() {
+        return System.nanoTime() / 1000000;
+    }
+}
@@ -0,0 +1,172 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps item keys to their positions in a list in logarithmic time.
+ * Every item has a slot, slots are ordered like the list and a Fenwick tree counts the slots
+ * in use, so the position of a key is the number of used slots up to its slot. Items are spread
+ * over every other slot when the index is built, so inserts take a free slot between their
+ * neighbours and removes only free their slot. When there is no free slot left, or when most
+ * slots were freed, the index is rebuilt from the list on the next lookup.
+ * Without a key extractor, lookups fall back to scanning the list with equals.
+ */
+class PositionIndex<T> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int SLOT_SPREAD = 2;
+
+    private ItemKeyExtractor<T> keyExtractor;
+    private final HashMap<Object, Integer> slotsByKey = new HashMap<>();
+    private Object[] slotKeys = new Object[0];
+    private int[] tree = new int[1];
+    private int size;
+    private int removedCount;
+    private boolean valid;
+
+    void setKeyExtractor(ItemKeyExtractor<T> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        invalidate();
+    }
+
+    ItemKeyExtractor<T> getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns the position of the item in items, matched by key if there is a key extractor.
+     */
+    int indexOf(List<T> items, T item) {
+        if (keyExtractor == null) {
+            return items.indexOf(item);
+        }
+        return indexOfKey(items, keyExtractor.getItemKey(item));
+    }
+
+    int indexOfKey(List<T> items, Object key) {
+        if (keyExtractor == null) {
+            throw new IllegalStateException("Set an ItemKeyExtractor to look up items by key");
+        }
+        if (!valid) {
+            rebuild(items);
+        }
+        Integer slot = slotsByKey.get(key);
+        return slot == null ? -1 : countUsedSlots(slot) - 1;
+    }
+
+    void onInserted(List<T> items, int position, int count) {
+        if (!valid || keyExtractor == null || count == 0) {
+            return;
+        }
+        int previousSlot = position > 0 ? findSlot(position - 1) : -1;
+        boolean appending = position == size;
+        int nextSlot = appending ? slotKeys.length : findSlot(position);
+        int gap = nextSlot - previousSlot;
+        if (gap <= count) {
+            valid = false;
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            //appended items take the next slots, inserted ones are spread over the gap
+            int slot = appending ? previousSlot + 1 + i : previousSlot + (int) ((long) (i + 1) * gap / (count + 1));
+            Object key = keyExtractor.getItemKey(items.get(position + i));
+            slotKeys[slot] = key;
+            slotsByKey.put(key, slot);
+            add(slot, 1);
+            size++;
+        }
+    }
+
+    void onRemoved(int position) {
+        if (!valid || keyExtractor == null) {
+            return;
+        }
+        int slot = findSlot(position);
+        add(slot, -1);
+        removeKey(slot);
+        size--;
+        if (++removedCount > Math.max(size, MIN_CAPACITY)) {
+            //mostly freed slots left, compact on the next lookup
+            valid = false;
+        }
+    }
+
+    void onChanged(int position, T item) {
+        if (!valid || keyExtractor == null) {
+            return;
+        }
+        int slot = findSlot(position);
+        removeKey(slot);
+        Object key = keyExtractor.getItemKey(item);
+        slotKeys[slot] = key;
+        slotsByKey.put(key, slot);
+    }
+
+    private void rebuild(List<T> items) {
+        int count = items.size();
+        int capacity = Math.max(MIN_CAPACITY, count * (SLOT_SPREAD + 1));
+        slotsByKey.clear();
+        slotKeys = new Object[capacity];
+        tree = new int[capacity + 1];
+        for (int i = 0; i < count; i++) {
+            int slot = i * SLOT_SPREAD;
+            Object key = keyExtractor.getItemKey(items.get(i));
+            slotKeys[slot] = key;
+            slotsByKey.put(key, slot);
+            tree[slot + 1] = 1;
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+        size = count;
+        removedCount = 0;
+        valid = true;
+    }
+
+    private void removeKey(int slot) {
+        Object key = slotKeys[slot];
+        Integer mappedSlot = slotsByKey.get(key);
+        if (mappedSlot != null && mappedSlot == slot) {
+            slotsByKey.remove(key);
+        }
+        slotKeys[slot] = null;
+    }
+
+    private void add(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int countUsedSlots(int lastSlot) {
+        int count = 0;
+        for (int i = lastSlot + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the slot of the item at the position, the slot where the used slot count reaches position + 1.
+     */
+    private int findSlot(int position) {
+        int slot = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < tree.length && tree[next] < remaining) {
+                slot = next;
+                remaining -= tree[next];
+            }
+        }
+        return slot;
+    }
+}
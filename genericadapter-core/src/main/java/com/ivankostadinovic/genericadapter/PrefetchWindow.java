@@ -0,0 +1,202 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Prefetches the resources of the rows that are about to be scrolled into view. While scrolling, the next
+ * distance rows in the scroll direction are handed to the prefetch callback on a background scheduler,
+ * nearest first. Rows that leave the window before their prefetch ran are skipped, and the cancel callback
+ * is called for rows whose prefetch is still running. Rows that were scrolled into view are just forgotten,
+ * their prefetch is what the bind needs. Must only be used from the main thread, apart from the prefetch callback.
+ */
+final class PrefetchWindow<T> {
+
+    interface Rows<T> {
+        T get(int position);
+    }
+
+    interface ItemCallback<T> {
+        void call(T item);
+    }
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int CANCELLED = 3;
+    private static final int NO_POSITION = -1;
+    private static final int PREFETCH_THREADS = 2;
+
+    private static Scheduler defaultScheduler;
+
+    private final Pagination.Count rowCount;
+    private final Rows<T> rows;
+    private final ItemCallback<T> prefetch;
+    private final ItemCallback<T> cancel;
+    private final Map<Object, Task> tasks = new IdentityHashMap<>();
+    //the items of the current window, nearest first, and the buffers the next window is collected in
+    private Object[] windowItems = new Object[0];
+    private int windowSize;
+    private Object[] nextItems = new Object[0];
+    private Object[] nextTasks = new Object[0];
+    private Scheduler scheduler;
+    private int distance;
+    private int lastFirst = NO_POSITION;
+    private int lastLast = NO_POSITION;
+    private boolean forward = true;
+
+    PrefetchWindow(Pagination.Count rowCount, Rows<T> rows, ItemCallback<T> prefetch, ItemCallback<T> cancel) {
+        this.rowCount = rowCount;
+        this.rows = rows;
+        this.prefetch = prefetch;
+        this.cancel = cancel;
+    }
+
+    /**
+     * Returns a scheduler shared by all adapters, with PREFETCH_THREADS low priority threads,
+     * so prefetching never competes with more than a few threads for the CPU and disk.
+     */
+    static synchronized Scheduler defaultScheduler() {
+        if (defaultScheduler == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            defaultScheduler = Schedulers.from(Executors.newFixedThreadPool(PREFETCH_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "GenericAdapter-prefetch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }));
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * Pass 0 to turn prefetching off.
+     */
+    void setDistance(int distance, Scheduler scheduler) {
+        this.distance = distance;
+        this.scheduler = scheduler;
+        cancelAll();
+    }
+
+    /**
+     * Called while scrolling with the first and last shown rows.
+     */
+    void onScrolled(int first, int last) {
+        if (distance <= 0) {
+            return;
+        }
+        if (lastFirst != NO_POSITION) {
+            if (first > lastFirst || last > lastLast) {
+                forward = true;
+            } else if (first < lastFirst || last < lastLast) {
+                forward = false;
+            }
+        }
+        lastFirst = first;
+        lastLast = last;
+        int count = rowCount.get();
+        if (nextItems.length < distance) {
+            nextItems = new Object[distance];
+            nextTasks = new Object[distance];
+        }
+        int nextSize = 0;
+        for (int i = 1; i <= distance; i++) {
+            int position = forward ? last + i : first - i;
+            if (position < 0 || position >= count) {
+                break;
+            }
+            T item = rows.get(position);
+            if (item != null) {
+                nextItems[nextSize] = item;
+                nextTasks[nextSize] = tasks.remove(item);
+                nextSize++;
+            }
+        }
+        //what is left in tasks fell out of the window, it was scrolled into view or away
+        for (int i = 0; i < windowSize; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) windowItems[i];
+            Task task = tasks.remove(item);
+            if (task != null && !isShown(item, first, last, count)) {
+                task.cancel();
+            }
+        }
+        for (int i = 0; i < nextSize; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) nextItems[i];
+            @SuppressWarnings("unchecked")
+            Task task = (Task) nextTasks[i];
+            if (task == null) {
+                task = new Task(item);
+                scheduler.scheduleDirect(task);
+            }
+            tasks.put(item, task);
+        }
+        //the buffers are swapped instead of allocated, so scrolling allocates nothing but the new tasks
+        Object[] items = windowItems;
+        windowItems = nextItems;
+        nextItems = items;
+        Arrays.fill(nextItems, 0, windowSize, null);
+        Arrays.fill(nextTasks, 0, nextSize, null);
+        windowSize = nextSize;
+    }
+
+    private boolean isShown(T item, int first, int last, int count) {
+        for (int position = Math.max(first, 0); position <= last && position < count; position++) {
+            if (rows.get(position) == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancels every prefetch that is still queued or running, for when the adapter is detached.
+     */
+    void cancelAll() {
+        for (int i = 0; i < windowSize; i++) {
+            Task task = tasks.remove(windowItems[i]);
+            if (task != null) {
+                task.cancel();
+            }
+            windowItems[i] = null;
+        }
+        windowSize = 0;
+        lastFirst = NO_POSITION;
+        lastLast = NO_POSITION;
+    }
+
+    private final class Task implements Runnable {
+
+        private final T item;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Task(T item) {
+            this.item = item;
+        }
+
+        @Override
+        public void run() {
+            if (state.compareAndSet(QUEUED, RUNNING)) {
+                try {
+                    prefetch.call(item);
+                } finally {
+                    state.compareAndSet(RUNNING, DONE);
+                }
+            }
+        }
+
+        private void cancel() {
+            //a queued task just skips its item once it runs
+            if (!state.compareAndSet(QUEUED, CANCELLED) && state.compareAndSet(RUNNING, CANCELLED)) {
+                PrefetchWindow.this.cancel.call(item);
+            }
+        }
+    }
+}
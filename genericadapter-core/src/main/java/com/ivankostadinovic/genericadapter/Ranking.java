@@ -0,0 +1,146 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The best scoring items for a query, best first, with the ranges that matched. Every item is scored once
+ * and only the best limit items are kept in a bounded heap, so ranking takes O(n log limit) time and
+ * O(limit) memory. Items with the same score keep their order.
+ */
+final class Ranking<T> {
+
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
+    private final List<T> items;
+    private final Map<T, MatchRanges> matchRanges;
+    private final boolean complete;
+
+    private Ranking(List<T> items, Map<T, MatchRanges> matchRanges, boolean complete) {
+        this.items = items;
+        this.matchRanges = matchRanges;
+        this.complete = complete;
+    }
+
+    List<T> getItems() {
+        return items;
+    }
+
+    MatchRanges getMatchRanges(T item) {
+        return matchRanges.get(item);
+    }
+
+    /**
+     * Returns false if more items matched than the limit.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns null if the signal got cancelled before every item was scored.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Ranking<T> rank(List<T> items, String query, ItemScorer<T> scorer, int limit, FilterEngine.CancellationSignal signal) {
+        float[] scores = new float[limit];
+        int[] positions = new int[limit];
+        Object[] heapItems = new Object[limit];
+        MatchRanges[] heapRanges = new MatchRanges[limit];
+        MatchRanges ranges = new MatchRanges();
+        int size = 0;
+        int matchCount = 0;
+        for (int i = 0, itemCount = items.size(); i < itemCount; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && signal.isCancelled()) {
+                return null;
+            }
+            T item = items.get(i);
+            ranges.clear();
+            float score = scorer.score(item, query, ranges);
+            if (score <= 0 || limit == 0) {
+                continue;
+            }
+            matchCount++;
+            int slot;
+            if (size < limit) {
+                slot = size++;
+            } else if (score > scores[0]) {
+                //the root is the worst kept item, an item with the same score came earlier and stays
+                slot = 0;
+            } else {
+                continue;
+            }
+            scores[slot] = score;
+            positions[slot] = i;
+            heapItems[slot] = item;
+            heapRanges[slot] = ranges.copy();
+            if (slot == 0 && size == limit) {
+                siftDown(scores, positions, heapItems, heapRanges, 0, size);
+            } else {
+                siftUp(scores, positions, heapItems, heapRanges, slot);
+            }
+        }
+        Object[] ranked = new Object[size];
+        Map<T, MatchRanges> matchRanges = new IdentityHashMap<>(size);
+        for (int last = size - 1; last >= 0; last--) {
+            ranked[last] = heapItems[0];
+            matchRanges.put((T) heapItems[0], heapRanges[0]);
+            swap(scores, positions, heapItems, heapRanges, 0, last);
+            siftDown(scores, positions, heapItems, heapRanges, 0, last);
+        }
+        List<T> rankedItems = new ChunkedList<>();
+        for (Object item : ranked) {
+            rankedItems.add((T) item);
+        }
+        return new Ranking<>(rankedItems, matchRanges, matchCount <= limit);
+    }
+
+    private static boolean isWorse(float[] scores, int[] positions, int first, int second) {
+        return scores[first] < scores[second] || scores[first] == scores[second] && positions[first] > positions[second];
+    }
+
+    private static void siftUp(float[] scores, int[] positions, Object[] items, MatchRanges[] ranges, int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (!isWorse(scores, positions, slot, parent)) {
+                return;
+            }
+            swap(scores, positions, items, ranges, slot, parent);
+            slot = parent;
+        }
+    }
+
+    private static void siftDown(float[] scores, int[] positions, Object[] items, MatchRanges[] ranges, int slot, int size) {
+        while (true) {
+            int worst = slot;
+            int left = slot * 2 + 1;
+            int right = left + 1;
+            if (left < size && isWorse(scores, positions, left, worst)) {
+                worst = left;
+            }
+            if (right < size && isWorse(scores, positions, right, worst)) {
+                worst = right;
+            }
+            if (worst == slot) {
+                return;
+            }
+            swap(scores, positions, items, ranges, slot, worst);
+            slot = worst;
+        }
+    }
+
+    private static void swap(float[] scores, int[] positions, Object[] items, MatchRanges[] ranges, int first, int second) {
+        float score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+        int position = positions[first];
+        positions[first] = positions[second];
+        positions[second] = position;
+        Object item = items[first];
+        items[first] = items[second];
+        items[second] = item;
+        MatchRanges range = ranges[first];
+        ranges[first] = ranges[second];
+        ranges[second] = range;
+    }
+}
@@ -0,0 +1,170 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Trigram index over the normalized search keys of a list of items.
+ * The entries are kept in the same order as the list, so the adapters update it by position,
+ * and every entry has a rank that grows with its position, so results are returned in list order.
+ */
+class SearchIndex<T> {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final long RANK_GAP = 1L << 16;
+
+    private static class Entry<T> {
+        private final T item;
+        private final String key;
+        private long rank;
+
+        private Entry(T item, String key) {
+            this.item = item;
+            this.key = key;
+        }
+    }
+
+    private final SearchKeyExtractor<T> keyExtractor;
+    private final ArrayList<Entry<T>> entries = new ArrayList<>();
+    private final HashMap<String, Set<Entry<T>>> postings = new HashMap<>();
+
+    SearchIndex(SearchKeyExtractor<T> keyExtractor, List<T> items) {
+        this(keyExtractor, items, null);
+    }
+
+    /**
+     * Takes the keys from normalizedKeys, and adds the ones it normalizes, so scans running while
+     * the index is built and the build itself normalize every key only once.
+     */
+    SearchIndex(SearchKeyExtractor<T> keyExtractor, List<T> items, NormalizedKeys<T> normalizedKeys) {
+        this.keyExtractor = keyExtractor;
+        insert(0, items, normalizedKeys);
+    }
+
+    /**
+     * Lower cases the text and strips accents, so keys that only differ in case or accents are equal.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    void insert(int position, List<T> items) {
+        insert(position, items, null);
+    }
+
+    private void insert(int position, List<T> items, NormalizedKeys<T> normalizedKeys) {
+        if (items.isEmpty()) {
+            return;
+        }
+        long lower = position > 0 ? entries.get(position - 1).rank : 0;
+        long upper = position < entries.size() ? entries.get(position).rank : lower + (items.size() + 1) * RANK_GAP;
+        long step = (upper - lower) / (items.size() + 1);
+        List<Entry<T>> newEntries = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            String key = normalizedKeys != null ? normalizedKeys.get(item, keyExtractor) : normalize(keyExtractor.getSearchKey(item));
+            Entry<T> entry = new Entry<>(item, key);
+            entry.rank = lower + (i + 1) * step;
+            newEntries.add(entry);
+            addPostings(entry);
+        }
+        entries.addAll(position, newEntries);
+        if (step == 0) {
+            //no room left between the neighbouring ranks
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).rank = (i + 1) * RANK_GAP;
+            }
+        }
+    }
+
+    void remove(int position) {
+        removePostings(entries.remove(position));
+    }
+
+    void set(int position, T item) {
+        Entry<T> oldEntry = entries.get(position);
+        removePostings(oldEntry);
+        Entry<T> entry = new Entry<>(item, normalize(keyExtractor.getSearchKey(item)));
+        entry.rank = oldEntry.rank;
+        entries.set(position, entry);
+        addPostings(entry);
+    }
+
+    /**
+     * Returns the items whose key contains the normalized query, in list order.
+     */
+    List<T> search(String query) {
+        String normalizedQuery = normalize(query);
+        List<T> result = new ChunkedList<>();
+        if (normalizedQuery.length() < GRAM_LENGTH) {
+            for (Entry<T> entry : entries) {
+                if (entry.key.contains(normalizedQuery)) {
+                    result.add(entry.item);
+                }
+            }
+            return result;
+        }
+        Set<Entry<T>> smallestPosting = null;
+        for (int i = 0; i + GRAM_LENGTH <= normalizedQuery.length(); i++) {
+            Set<Entry<T>> posting = postings.get(normalizedQuery.substring(i, i + GRAM_LENGTH));
+            if (posting == null) {
+                return result;
+            }
+            if (smallestPosting == null || posting.size() < smallestPosting.size()) {
+                smallestPosting = posting;
+            }
+        }
+        List<Entry<T>> matches = new ArrayList<>();
+        for (Entry<T> entry : smallestPosting) {
+            if (entry.key.contains(normalizedQuery)) {
+                matches.add(entry);
+            }
+        }
+        Collections.sort(matches, (first, second) -> Long.compare(first.rank, second.rank));
+        for (Entry<T> entry : matches) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    private void addPostings(Entry<T> entry) {
+        for (int i = 0; i + GRAM_LENGTH <= entry.key.length(); i++) {
+            String gram = entry.key.substring(i, i + GRAM_LENGTH);
+            Set<Entry<T>> posting = postings.get(gram);
+            if (posting == null) {
+                posting = new HashSet<>();
+                postings.put(gram, posting);
+            }
+            posting.add(entry);
+        }
+    }
+
+    private void removePostings(Entry<T> entry) {
+        for (int i = 0; i + GRAM_LENGTH <= entry.key.length(); i++) {
+            String gram = entry.key.substring(i, i + GRAM_LENGTH);
+            Set<Entry<T>> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(entry);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+}
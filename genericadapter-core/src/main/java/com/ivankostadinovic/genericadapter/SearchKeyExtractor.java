@@ -0,0 +1,8 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Returns the text an item is searched by, for example the name of a radio station.
+ */
+public interface SearchKeyExtractor<T> {
+    String getSearchKey(T item);
+}
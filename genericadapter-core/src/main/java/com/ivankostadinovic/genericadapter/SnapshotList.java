@@ -0,0 +1,121 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list that loads its items when they are first read and keeps them, so every item is loaded
+ * at most once and always read as the same instance. Snapshots of the list share the loaded items
+ * and take constant time. The first change copies all items into a ChunkedList, which backs the list
+ * from then on. Loading is synchronized, so snapshots can be read on background threads while rows are bound.
+ */
+final class SnapshotList<T> extends AbstractList<T> implements RandomAccess {
+
+    interface Loader<T> {
+        T load(int index);
+    }
+
+    private static final class LoadedItems<T> {
+
+        private final Loader<T> loader;
+        private final Object[] items;
+
+        private LoadedItems(Loader<T> loader, int size) {
+            this.loader = loader;
+            this.items = new Object[size];
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized T get(int index) {
+            Object item = items[index];
+            if (item == null) {
+                item = loader.load(index);
+                items[index] = item;
+            }
+            return (T) item;
+        }
+    }
+
+    private final LoadedItems<T> loadedItems;
+    private volatile ChunkedList<T> items;
+
+    SnapshotList(int size, Loader<T> loader) {
+        this(new LoadedItems<>(loader, size));
+    }
+
+    private SnapshotList(LoadedItems<T> loadedItems) {
+        this.loadedItems = loadedItems;
+    }
+
+    /**
+     * Returns a snapshot of items if it is a SnapshotList or a ChunkedList, otherwise a new ChunkedList with the items.
+     */
+    static <T> List<T> snapshotOf(List<T> items) {
+        if (items instanceof SnapshotList) {
+            return ((SnapshotList<T>) items).snapshot();
+        }
+        return ChunkedList.copyOf(items);
+    }
+
+    /**
+     * Returns a copy of the list in constant time, without loading any items.
+     */
+    List<T> snapshot() {
+        ChunkedList<T> items = this.items;
+        return items != null ? items.snapshot() : new SnapshotList<>(loadedItems);
+    }
+
+    @Override
+    public T get(int index) {
+        ChunkedList<T> items = this.items;
+        if (items != null) {
+            return items.get(index);
+        }
+        if (index < 0 || index >= loadedItems.items.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + loadedItems.items.length);
+        }
+        return loadedItems.get(index);
+    }
+
+    @Override
+    public int size() {
+        ChunkedList<T> items = this.items;
+        return items != null ? items.size() : loadedItems.items.length;
+    }
+
+    @Override
+    public T set(int index, T item) {
+        return editableItems().set(index, item);
+    }
+
+    @Override
+    public void add(int index, T item) {
+        editableItems().add(index, item);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T item = editableItems().remove(index);
+        modCount++;
+        return item;
+    }
+
+    @Override
+    public void clear() {
+        editableItems().clear();
+        modCount++;
+    }
+
+    private ChunkedList<T> editableItems() {
+        if (items == null) {
+            ChunkedList<T> copy = new ChunkedList<>();
+            for (int i = 0; i < loadedItems.items.length; i++) {
+                copy.add(loadedItems.get(i));
+            }
+            items = copy;
+        }
+        return items;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps lists sorted by a comparator. New items are placed after the items they compare equal to,
+ * so items that compare equal keep the order they were added in.
+ */
+final class SortedLists {
+
+    interface InsertCallback<T> {
+        void onInserted(int position, List<T> items);
+    }
+
+    private SortedLists() {
+    }
+
+    /**
+     * Returns the position at which the item has to be inserted into the sorted list.
+     */
+    static <T> int insertionPoint(List<T> sorted, T item, Comparator<? super T> comparator) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(sorted.get(middle), item) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns true if the item at the position still sits between its neighbours.
+     */
+    static <T> boolean isInOrder(List<T> sorted, int position, Comparator<? super T> comparator) {
+        T item = sorted.get(position);
+        return (position == 0 || comparator.compare(sorted.get(position - 1), item) <= 0)
+            && (position == sorted.size() - 1 || comparator.compare(item, sorted.get(position + 1)) <= 0);
+    }
+
+    /**
+     * Merges the additions into the sorted list in linear time and returns the merged list, a ChunkedList
+     * like the lists the adapters keep, so it is not copied again when it is shown or snapshotted.
+     * The additions are sorted first, which is linear as well when they already are.
+     * Every run of consecutive additions in the merged list is reported to the callback
+     * as an insert, from the first position to the last.
+     */
+    static <T> List<T> merge(List<T> sorted, List<T> additions, Comparator<? super T> comparator, InsertCallback<T> callback) {
+        List<T> sortedAdditions = new ArrayList<>(additions);
+        Collections.sort(sortedAdditions, comparator);
+        List<T> merged = new ChunkedList<>();
+        int sortedIndex = 0;
+        int additionIndex = 0;
+        int runStart = -1;
+        while (additionIndex < sortedAdditions.size()) {
+            T addition = sortedAdditions.get(additionIndex);
+            if (sortedIndex < sorted.size() && comparator.compare(sorted.get(sortedIndex), addition) <= 0) {
+                if (runStart != -1) {
+                    callback.onInserted(runStart, merged.subList(runStart, merged.size()));
+                    runStart = -1;
+                }
+                merged.add(sorted.get(sortedIndex++));
+            } else {
+                if (runStart == -1) {
+                    runStart = merged.size();
+                }
+                merged.add(addition);
+                additionIndex++;
+            }
+        }
+        if (runStart != -1) {
+            callback.onInserted(runStart, merged.subList(runStart, merged.size()));
+        }
+        merged.addAll(sorted.subList(sortedIndex, sorted.size()));
+        return merged;
+    }
+}
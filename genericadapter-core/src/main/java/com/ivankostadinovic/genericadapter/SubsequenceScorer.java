@@ -0,0 +1,97 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Matches the characters of the query in order anywhere in the search key, ignoring case, so "rdo" matches "Radio".
+ * Every matched character scores, more when it follows the previous match or starts a word, so whole words
+ * and consecutive characters rank first. Keys that contain the query as a whole are matched there.
+ * Among equal matches, shorter keys rank first.
+ */
+public final class SubsequenceScorer<T> implements ItemScorer<T> {
+
+    private static final float CONSECUTIVE_BONUS = 2;
+    private static final float WORD_START_BONUS = 3;
+    private static final float LENGTH_PENALTY = 0.01f;
+
+    private final SearchKeyExtractor<T> keyExtractor;
+
+    public SubsequenceScorer(SearchKeyExtractor<T> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public float score(T item, String query, MatchRanges matchRanges) {
+        String key = keyExtractor.getSearchKey(item);
+        if (key == null || query.isEmpty() || query.length() > key.length()) {
+            return 0;
+        }
+        int start = bestOccurrence(key, query);
+        float score;
+        if (start != -1) {
+            score = scoreRun(key, start, query.length());
+            matchRanges.add(start, start + query.length());
+        } else {
+            score = scoreSubsequence(key, query, matchRanges);
+            if (score == 0) {
+                return 0;
+            }
+        }
+        return score / (1 + LENGTH_PENALTY * (key.length() - query.length()));
+    }
+
+    /**
+     * Returns where the key contains the query, preferring a word start, or -1.
+     */
+    private static int bestOccurrence(String key, String query) {
+        int first = -1;
+        for (int i = 0; i + query.length() <= key.length(); i++) {
+            if (key.regionMatches(true, i, query, 0, query.length())) {
+                if (isWordStart(key, i)) {
+                    return i;
+                }
+                if (first == -1) {
+                    first = i;
+                }
+            }
+        }
+        return first;
+    }
+
+    private static float scoreRun(String key, int start, int length) {
+        float score = length + (length - 1) * CONSECUTIVE_BONUS;
+        return isWordStart(key, start) ? score + WORD_START_BONUS : score;
+    }
+
+    private static float scoreSubsequence(String key, String query, MatchRanges matchRanges) {
+        float score = 0;
+        int previous = -2;
+        int keyIndex = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            while (keyIndex < key.length() && !equalsIgnoreCase(key.charAt(keyIndex), c)) {
+                keyIndex++;
+            }
+            if (keyIndex == key.length()) {
+                matchRanges.clear();
+                return 0;
+            }
+            score += 1;
+            if (keyIndex == previous + 1) {
+                score += CONSECUTIVE_BONUS;
+            }
+            if (isWordStart(key, keyIndex)) {
+                score += WORD_START_BONUS;
+            }
+            matchRanges.add(keyIndex, keyIndex + 1);
+            previous = keyIndex++;
+        }
+        return score;
+    }
+
+    private static boolean isWordStart(String key, int index) {
+        return index == 0 || !Character.isLetterOrDigit(key.charAt(index - 1));
+    }
+
+    private static boolean equalsIgnoreCase(char first, char second) {
+        return first == second || Character.toLowerCase(first) == Character.toLowerCase(second);
+    }
+}
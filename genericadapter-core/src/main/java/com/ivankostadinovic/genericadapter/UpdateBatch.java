@@ -0,0 +1,225 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.Arrays;
+
+/**
+ * Records the changes made during a batch and merges each one into an earlier one where possible:
+ * adjacent inserts, removes and changes become one range, changes and removes inside an inserted range
+ * are folded into that insert. A change is merged past the operations recorded after its target,
+ * which are shifted to keep their meaning, and it is recorded on its own once it overlaps one of them or a move.
+ */
+final class UpdateBatch implements UpdateCallback {
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int CHANGE = 2;
+    private static final int MOVE = 3;
+    private static final int MAX_OPERATIONS = 100;
+    private static final int NONE = -1;
+
+    private int[] types = new int[16];
+    private int[] positions = new int[16];
+    private int[] counts = new int[16];
+    private Object[] payloads = new Object[16];
+    private int size;
+    private boolean fullRefresh;
+
+    /**
+     * Marks the whole list as changed, the batch then ends with notifyDataSetChanged.
+     */
+    void refreshAll() {
+        fullRefresh = true;
+        //the recorded changes are dropped, so their payloads must not be kept alive until the batch ends
+        Arrays.fill(payloads, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        if (fullRefresh || count == 0) {
+            return;
+        }
+        int target = findTarget(INSERT, position, count, null);
+        if (target == NONE) {
+            add(INSERT, position, count, null);
+            return;
+        }
+        shiftPast(target, INSERT, position, count);
+        counts[target] += count;
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        if (fullRefresh || count == 0) {
+            return;
+        }
+        int target = findTarget(REMOVE, position, count, null);
+        if (target == NONE) {
+            add(REMOVE, position, count, null);
+            return;
+        }
+        position = shiftPast(target, REMOVE, position, count);
+        if (types[target] == REMOVE) {
+            positions[target] = position;
+            counts[target] += count;
+            return;
+        }
+        //removing items that were inserted in this batch
+        counts[target] -= count;
+        if (counts[target] == 0) {
+            delete(target);
+        }
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        if (!fullRefresh) {
+            add(MOVE, fromPosition, toPosition, null);
+        }
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        if (fullRefresh || count == 0) {
+            return;
+        }
+        int target = findTarget(CHANGE, position, count, payload);
+        if (target == NONE) {
+            add(CHANGE, position, count, payload);
+            return;
+        }
+        position = shiftPast(target, CHANGE, position, count);
+        if (types[target] == INSERT) {
+            //the inserted items get bound anyway
+            return;
+        }
+        int start = Math.min(position, positions[target]);
+        int end = Math.max(position + count, positions[target] + counts[target]);
+        positions[target] = start;
+        counts[target] = end - start;
+    }
+
+    /**
+     * Dispatches the merged operations and clears the batch. Returns false without dispatching
+     * when the whole list has to be refreshed instead.
+     */
+    boolean dispatchTo(UpdateCallback callback) {
+        boolean dispatch = !fullRefresh && size <= MAX_OPERATIONS;
+        for (int i = 0; dispatch && i < size; i++) {
+            switch (types[i]) {
+                case INSERT:
+                    callback.onInserted(positions[i], counts[i]);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(positions[i], counts[i]);
+                    break;
+                case CHANGE:
+                    callback.onChanged(positions[i], counts[i], payloads[i]);
+                    break;
+                default:
+                    callback.onMoved(positions[i], counts[i]);
+                    break;
+            }
+        }
+        Arrays.fill(payloads, 0, size, null);
+        size = 0;
+        fullRefresh = false;
+        return dispatch;
+    }
+
+    private void add(int type, int position, int count, Object payload) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+        types[size] = type;
+        positions[size] = position;
+        counts[size] = count;
+        payloads[size] = payload;
+        size++;
+    }
+
+    /**
+     * Returns the recorded operation the change can be merged into, or NONE. The change is moved
+     * backwards past the later operations as long as it does not overlap them.
+     */
+    private int findTarget(int type, int position, int count, Object payload) {
+        int oldest = Math.max(0, size - MAX_OPERATIONS);
+        for (int i = size - 1; i >= oldest && position != NONE; i--) {
+            if (canMerge(i, type, position, count, payload)) {
+                return i;
+            }
+            position = positionBefore(i, type, position, count);
+        }
+        return NONE;
+    }
+
+    private boolean canMerge(int i, int type, int position, int count, Object payload) {
+        int start = positions[i];
+        int end = start + counts[i];
+        switch (type) {
+            case INSERT:
+                return types[i] == INSERT && position >= start && position <= end;
+            case REMOVE:
+                return types[i] == REMOVE && position <= start && position + count >= start
+                    || types[i] == INSERT && position >= start && position + count <= end;
+            default:
+                return types[i] == INSERT && position >= start && position + count <= end
+                    || types[i] == CHANGE && payloads[i] == payload && position <= end && position + count >= start;
+        }
+    }
+
+    /**
+     * Returns the position the change would have had before operation i, or NONE if they overlap.
+     */
+    private int positionBefore(int i, int type, int position, int count) {
+        int start = positions[i];
+        int end = type == INSERT ? position : position + count;
+        switch (types[i]) {
+            case INSERT:
+                if (end <= start) {
+                    return position;
+                }
+                return position >= start + counts[i] ? position - counts[i] : NONE;
+            case REMOVE:
+                if (end <= start) {
+                    return position;
+                }
+                return position >= start ? position + counts[i] : NONE;
+            case CHANGE:
+                return end <= start || position >= start + counts[i] ? position : NONE;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Moves the change before the operations after target, shifting them by the items it inserts or removes,
+     * and returns its position before them.
+     */
+    private int shiftPast(int target, int type, int position, int count) {
+        for (int i = size - 1; i > target; i--) {
+            int before = positionBefore(i, type, position, count);
+            if (type == INSERT && position <= positions[i]) {
+                positions[i] += count;
+            } else if (type == REMOVE && position + count <= positions[i]) {
+                positions[i] -= count;
+            }
+            position = before;
+        }
+        return position;
+    }
+
+    private void delete(int i) {
+        int moved = size - i - 1;
+        System.arraycopy(types, i + 1, types, i, moved);
+        System.arraycopy(positions, i + 1, positions, i, moved);
+        System.arraycopy(counts, i + 1, counts, i, moved);
+        System.arraycopy(payloads, i + 1, payloads, i, moved);
+        size--;
+        payloads[size] = null;
+    }
+}
\ No newline at end of file
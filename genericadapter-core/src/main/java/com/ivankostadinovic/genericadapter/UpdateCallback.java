@@ -0,0 +1,15 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Receives the changed positions of a list, with the same calls as the ListUpdateCallback of RecyclerView,
+ * so the core classes do not depend on Android. The adapters pass callbacks that notify themselves.
+ */
+interface UpdateCallback {
+    void onInserted(int position, int count);
+
+    void onRemoved(int position, int count);
+
+    void onMoved(int fromPosition, int toPosition);
+
+    void onChanged(int position, int count, Object payload);
+}
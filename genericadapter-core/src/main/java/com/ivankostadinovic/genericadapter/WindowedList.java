@@ -0,0 +1,275 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A list that only keeps the pages around the shown rows in memory. Pages further away are evicted
+ * when more than maxResidentPages are loaded, their rows read as null, and they are loaded again through
+ * the PageLoader when they are shown. The size never changes when pages are evicted or loaded,
+ * so adapter positions stay the same. Items can only be appended, which is how endless lists grow.
+ * The last page is never evicted, since items are appended to it, and appending to a page that is not loaded
+ * loads its earlier rows first. Must only be used from the main thread.
+ */
+public class WindowedList<T> extends AbstractList<T> {
+
+    public interface PageLoader {
+        /**
+         * Loads the items from offset to offset + count and hands them to setPage.
+         */
+        void loadPage(int pageIndex, int offset, int count);
+    }
+
+    private final int pageSize;
+    private final int maxResidentPages;
+    private final PageLoader pageLoader;
+    //indexed by page, null for pages that are not loaded, so reading a row does not box its page index
+    private Object[][] pages = new Object[0][];
+    private int loadedPageCount;
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private final Map<Integer, PendingAppends> pendingAppends = new HashMap<>();
+    private int size;
+    private int shownPage;
+    private int synchronousLoadPage = -1;
+    private UpdateCallback updateCallback;
+
+    public WindowedList(int pageSize, int maxResidentPages, PageLoader pageLoader) {
+        this.pageSize = pageSize;
+        this.maxResidentPages = Math.max(2, maxResidentPages);
+        this.pageLoader = pageLoader;
+    }
+
+    void setUpdateCallback(UpdateCallback updateCallback) {
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * Sets the total number of items, for lists whose size is known before the items are loaded.
+     */
+    public void setSize(int size) {
+        int oldSize = this.size;
+        this.size = size;
+        if (size < oldSize) {
+            for (int pageIndex = pageCount(size); pageIndex < pageCount(oldSize); pageIndex++) {
+                removePage(pageIndex);
+                loadingPages.remove(pageIndex);
+                pendingAppends.remove(pageIndex);
+            }
+            if (updateCallback != null) {
+                updateCallback.onRemoved(size, oldSize - size);
+            }
+        } else if (size > oldSize && updateCallback != null) {
+            updateCallback.onInserted(oldSize, size - oldSize);
+        }
+    }
+
+    /**
+     * Hands over the items of a page requested by the PageLoader.
+     */
+    public void setPage(int pageIndex, List<T> items) {
+        loadingPages.remove(pageIndex);
+        int offset = pageIndex * pageSize;
+        if (offset >= size) {
+            return;
+        }
+        int count = Math.min(Math.min(pageSize, size - offset), items.size());
+        Object[] page = getOrCreatePage(pageIndex);
+        for (int i = 0; i < count; i++) {
+            page[i] = items.get(i);
+        }
+        PendingAppends appends = pendingAppends.remove(pageIndex);
+        if (appends != null) {
+            //the rows appended while the page was loading come after the ones the loader was asked for
+            int end = Math.min(pageSize, size - offset);
+            for (int i = appends.firstSlot; i < end; i++) {
+                page[i] = appends.items[i];
+            }
+            count = Math.max(count, end);
+        }
+        evictDistantPages();
+        //a page handed over from within loadPage is returned by getShown instead of being notified
+        if (updateCallback != null && pageIndex != synchronousLoadPage) {
+            updateCallback.onChanged(offset, count, null);
+        }
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isLoaded(int position) {
+        return pageAt(position / pageSize) != null;
+    }
+
+    @Override
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+        }
+        Object[] page = pageAt(position / pageSize);
+        return page != null ? itemAt(page, position % pageSize) : null;
+    }
+
+    /**
+     * Returns the item at the shown position and moves the window there, loading its page
+     * if it was evicted. Returns null until the page is loaded.
+     */
+    T getShown(int position) {
+        int pageIndex = position / pageSize;
+        shownPage = pageIndex;
+        Object[] page = pageAt(pageIndex);
+        if (page == null && loadingPages.add(pageIndex)) {
+            int offset = pageIndex * pageSize;
+            synchronousLoadPage = pageIndex;
+            pageLoader.loadPage(pageIndex, offset, Math.min(pageSize, size - offset));
+            synchronousLoadPage = -1;
+            page = pageAt(pageIndex);
+        }
+        return page != null ? itemAt(page, position % pageSize) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends the item. Only adding at the end is supported.
+     */
+    @Override
+    public void add(int index, T item) {
+        if (index != size) {
+            throw new UnsupportedOperationException("WindowedList only supports adding items at the end");
+        }
+        int pageIndex = size / pageSize;
+        int slot = size % pageSize;
+        if (slot > 0 && pageAt(pageIndex) == null) {
+            appendToUnloadedPage(pageIndex, slot, item);
+        } else {
+            getOrCreatePage(pageIndex)[slot] = item;
+        }
+        size++;
+        modCount++;
+        evictDistantPages();
+    }
+
+    /**
+     * Loads the rows of the page before slot, and keeps the item until they are loaded,
+     * so the page is never partly filled.
+     */
+    private void appendToUnloadedPage(int pageIndex, int slot, T item) {
+        PendingAppends appends = pendingAppends.get(pageIndex);
+        if (appends == null) {
+            if (loadingPages.add(pageIndex)) {
+                pageLoader.loadPage(pageIndex, pageIndex * pageSize, slot);
+            }
+            Object[] page = pageAt(pageIndex);
+            if (page != null) {
+                //the loader handed the page over right away
+                page[slot] = item;
+                return;
+            }
+            appends = new PendingAppends(slot, pageSize);
+            pendingAppends.put(pageIndex, appends);
+        }
+        appends.items[slot] = item;
+    }
+
+    /**
+     * Replaces an item of a loaded page. Items of evicted pages can't be replaced, since their page
+     * is loaded from the source again, so update the source instead.
+     */
+    @Override
+    public T set(int index, T item) {
+        T oldItem = get(index);
+        int pageIndex = index / pageSize;
+        int slot = index % pageSize;
+        Object[] page = pageAt(pageIndex);
+        if (page != null) {
+            page[slot] = item;
+            return oldItem;
+        }
+        PendingAppends appends = pendingAppends.get(pageIndex);
+        if (appends == null || slot < appends.firstSlot) {
+            throw new IllegalStateException("Item " + index + " is not loaded, update the source its page is loaded from");
+        }
+        appends.items[slot] = item;
+        return oldItem;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pages, null);
+        loadedPageCount = 0;
+        loadingPages.clear();
+        pendingAppends.clear();
+        size = 0;
+        shownPage = 0;
+        modCount++;
+    }
+
+    private Object[] pageAt(int pageIndex) {
+        return pageIndex < pages.length ? pages[pageIndex] : null;
+    }
+
+    private Object[] getOrCreatePage(int pageIndex) {
+        Object[] page = pageAt(pageIndex);
+        if (page == null) {
+            if (pageIndex >= pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+            }
+            page = new Object[pageSize];
+            pages[pageIndex] = page;
+            loadedPageCount++;
+        }
+        return page;
+    }
+
+    private void removePage(int pageIndex) {
+        if (pageAt(pageIndex) != null) {
+            pages[pageIndex] = null;
+            loadedPageCount--;
+        }
+    }
+
+    private void evictDistantPages() {
+        int lastPage = pageCount(size) - 1;
+        while (loadedPageCount > maxResidentPages) {
+            int farthestPage = -1;
+            for (int pageIndex = 0; pageIndex < pages.length; pageIndex++) {
+                if (pages[pageIndex] == null || pageIndex == lastPage) {
+                    continue;
+                }
+                if (farthestPage == -1 || Math.abs(pageIndex - shownPage) > Math.abs(farthestPage - shownPage)) {
+                    farthestPage = pageIndex;
+                }
+            }
+            removePage(farthestPage);
+        }
+    }
+
+    private int pageCount(int itemCount) {
+        return (itemCount + pageSize - 1) / pageSize;
+    }
+
+    private static final class PendingAppends {
+
+        private final int firstSlot;
+        private final Object[] items;
+
+        private PendingAppends(int firstSlot, int pageSize) {
+            this.firstSlot = firstSlot;
+            this.items = new Object[pageSize];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T itemAt(Object[] page, int index) {
+        return (T) page[index];
+    }
+}
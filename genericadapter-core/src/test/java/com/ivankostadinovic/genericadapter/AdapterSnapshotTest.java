@@ -0,0 +1,114 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class AdapterSnapshotTest {
+
+    private static final ItemSerializer<String> SERIALIZER = new ItemSerializer<String>() {
+        @Override
+        public void write(String item, DataOutput output) throws IOException {
+            output.writeUTF(item);
+        }
+
+        @Override
+        public String read(DataInput input) throws IOException {
+            return input.readUTF();
+        }
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoresTheItemsQueryAndFilteredItems() throws IOException {
+        File file = folder.newFile();
+        List<String> items = Arrays.asList("radio one", "tv", "radio two", "");
+        AdapterSnapshot.write(file, items, "radio", Arrays.asList(items.get(2), items.get(0)), SERIALIZER);
+        AdapterSnapshot<String> snapshot = AdapterSnapshot.read(file, SERIALIZER);
+        assertEquals(items, snapshot.getItems());
+        assertEquals("radio", snapshot.getQuery());
+        assertEquals(Arrays.asList("radio two", "radio one"), snapshot.getFilteredItems());
+    }
+
+    @Test
+    public void restoresUnfilteredSnapshots() throws IOException {
+        File file = folder.newFile();
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add("item " + i);
+        }
+        AdapterSnapshot.write(file, items, "", null, SERIALIZER);
+        AdapterSnapshot<String> snapshot = AdapterSnapshot.read(file, SERIALIZER);
+        assertEquals(items, snapshot.getItems());
+        assertNull(snapshot.getFilteredItems());
+    }
+
+    @Test
+    public void restoredItemsCanBeChanged() throws IOException {
+        File file = folder.newFile();
+        AdapterSnapshot.write(file, Arrays.asList("a", "b", "c"), "", null, SERIALIZER);
+        List<String> items = AdapterSnapshot.read(file, SERIALIZER).getItems();
+        items.remove(1);
+        items.add("d");
+        assertEquals(Arrays.asList("a", "c", "d"), items);
+    }
+
+    @Test
+    public void restoresEmptySnapshots() throws IOException {
+        File file = folder.newFile();
+        AdapterSnapshot.write(file, new ArrayList<String>(), "query", new ArrayList<String>(), SERIALIZER);
+        AdapterSnapshot<String> snapshot = AdapterSnapshot.read(file, SERIALIZER);
+        assertEquals(0, snapshot.getItems().size());
+        assertEquals("query", snapshot.getQuery());
+        assertEquals(0, snapshot.getFilteredItems().size());
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws IOException {
+        File file = folder.newFile();
+        AdapterSnapshot.write(file, Arrays.asList("a", "b", "c"), "query", null, SERIALIZER);
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(output.length() - 6);
+        }
+        try {
+            AdapterSnapshot.read(file, SERIALIZER);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void rejectsFilesThatAreNoSnapshots() throws IOException {
+        File file = folder.newFile();
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.writeLong(42);
+            output.writeLong(42);
+            output.writeLong(42);
+        }
+        try {
+            AdapterSnapshot.read(file, SERIALIZER);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsFilteredItemsThatAreNotItems() throws IOException {
+        AdapterSnapshot.write(folder.newFile(), Arrays.asList("a", "b"), "", Arrays.asList("c"), SERIALIZER);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChunkedListTest {
+
+    @Test
+    public void changesToTheListDoNotShowInItsSnapshots() {
+        ChunkedList<Integer> list = ChunkedList.copyOf(range(0, 200));
+        ChunkedList<Integer> snapshot = list.snapshot();
+        list.set(10, -1);
+        list.add(70, -2);
+        list.remove(150);
+        assertEquals(range(0, 200), snapshot);
+        assertEquals(Integer.valueOf(-1), list.get(10));
+        assertEquals(Integer.valueOf(-2), list.get(70));
+        assertEquals(200, list.size());
+    }
+
+    @Test
+    public void changesToASnapshotDoNotShowInTheList() {
+        ChunkedList<Integer> list = ChunkedList.copyOf(range(0, 200));
+        ChunkedList<Integer> snapshot = list.snapshot();
+        snapshot.add(0, -1);
+        snapshot.clear();
+        assertEquals(range(0, 200), list);
+    }
+
+    @Test
+    public void copyOfAChunkedListIsASnapshot() {
+        ChunkedList<Integer> list = ChunkedList.copyOf(range(0, 10));
+        List<Integer> copy = ChunkedList.copyOf(list);
+        list.set(0, -1);
+        assertEquals(range(0, 10), copy);
+    }
+
+    @Test
+    public void behavesLikeAnArrayListUnderRandomChanges() {
+        Random random = new Random(1);
+        List<Integer> expected = new ArrayList<>();
+        ChunkedList<Integer> list = new ChunkedList<>();
+        List<ChunkedList<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> expectedSnapshots = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(4);
+            if (operation == 0 || expected.isEmpty()) {
+                int position = random.nextInt(expected.size() + 1);
+                expected.add(position, i);
+                list.add(position, i);
+            } else if (operation == 1) {
+                int position = random.nextInt(expected.size());
+                assertEquals(expected.remove(position), list.remove(position));
+            } else if (operation == 2) {
+                int position = random.nextInt(expected.size());
+                assertEquals(expected.set(position, i), list.set(position, i));
+            } else if (i % 100 == 0) {
+                snapshots.add(list.snapshot());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            }
+        }
+        assertEquals(expected, list);
+        assertEquals(expectedSnapshots, snapshots);
+    }
+
+    @Test
+    public void staysUsableAfterEveryChunkWasEmptied() {
+        ChunkedList<Integer> list = ChunkedList.copyOf(range(0, 300));
+        ChunkedList<Integer> snapshot = list.snapshot();
+        while (!list.isEmpty()) {
+            list.remove(0);
+        }
+        list.add(0, 1);
+        list.add(0, 0);
+        assertEquals(listOf(0, 1), list);
+        assertEquals(range(0, 300), snapshot);
+    }
+
+    static List<Integer> range(int start, int end) {
+        List<Integer> items = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    static List<Integer> listOf(Integer... items) {
+        return new ArrayList<>(Arrays.asList(items));
+    }
+}
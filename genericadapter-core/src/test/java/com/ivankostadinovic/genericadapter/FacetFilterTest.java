@@ -0,0 +1,86 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ivankostadinovic.genericadapter.ChunkedListTest.listOf;
+import static com.ivankostadinovic.genericadapter.ChunkedListTest.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FacetFilterTest {
+
+    private final FacetFilter<Integer> facets = new FacetFilter<>();
+
+    @Test
+    public void combinesFacetsOfAGroupWithOrAndGroupsWithAnd() {
+        List<Integer> items = range(0, 20);
+        facets.set("even", "kind", item -> item % 2 == 0, items);
+        facets.set("fives", "kind", item -> item % 5 == 0, items);
+        facets.set("small", "size", item -> item < 12, items);
+        assertEquals(listOf(0, 2, 4, 5, 6, 8, 10), facets.retainMatches(items, items));
+        assertTrue(facets.matches(4));
+        assertTrue(facets.matches(5));
+        assertFalse(facets.matches(7));
+        assertFalse(facets.matches(14));
+        facets.remove("small");
+        assertTrue(facets.matches(14));
+    }
+
+    @Test
+    public void shiftsMatchesWhenItemsAreInserted() {
+        List<Integer> items = new ArrayList<>(listOf(1, 2, 3, 4));
+        facets.set("even", "kind", item -> item % 2 == 0, items);
+        List<Integer> inserted = Arrays.asList(6, 7);
+        items.addAll(1, inserted);
+        facets.onItemsInserted(1, inserted);
+        assertEquals(listOf(6, 2, 4), facets.retainMatches(items, items));
+    }
+
+    @Test
+    public void shiftsMatchesWhenItemsAreRemoved() {
+        List<Integer> items = new ArrayList<>(range(0, 200));
+        facets.set("even", "kind", item -> item % 2 == 0, items);
+        items.remove(0);
+        facets.onItemRemoved(0);
+        items.remove(100);
+        facets.onItemRemoved(100);
+        List<Integer> expected = new ArrayList<>();
+        for (Integer item : items) {
+            if (item % 2 == 0) {
+                expected.add(item);
+            }
+        }
+        assertEquals(expected, facets.retainMatches(items, items));
+    }
+
+    @Test
+    public void followsChangedItems() {
+        List<Integer> items = new ArrayList<>(listOf(1, 2, 3));
+        facets.set("even", "kind", item -> item % 2 == 0, items);
+        items.set(0, 8);
+        facets.onItemChanged(0, 8);
+        assertEquals(listOf(8, 2), facets.retainMatches(items, items));
+    }
+
+    @Test
+    public void rebuildChecksEveryFacetAgainstNewItems() {
+        facets.set("even", "kind", item -> item % 2 == 0, range(0, 10));
+        facets.set("small", "size", item -> item < 25, range(0, 10));
+        List<Integer> items = range(20, 30);
+        facets.rebuild(items);
+        assertEquals(listOf(20, 22, 24), facets.retainMatches(items, items));
+    }
+
+    @Test
+    public void onlyRetainsItemsOfTheResult() {
+        List<Integer> items = range(0, 10);
+        facets.set("even", "kind", item -> item % 2 == 0, items);
+        List<Integer> result = Arrays.asList(items.get(1), items.get(2), items.get(3), items.get(4));
+        assertEquals(listOf(2, 4), facets.retainMatches(items, result));
+    }
+}
@@ -0,0 +1,63 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.ivankostadinovic.genericadapter.ChunkedListTest.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FilterDiffTest {
+
+    private final List<Integer> items = range(0, 10);
+    private final RecordingCallback callback = new RecordingCallback();
+
+    @Test
+    public void dispatchesRemovedAndInsertedRanges() {
+        List<Integer> oldResult = Arrays.asList(items.get(0), items.get(1), items.get(2), items.get(5));
+        List<Integer> newResult = Arrays.asList(items.get(0), items.get(5), items.get(6), items.get(7));
+        assertTrue(FilterDiff.dispatchUpdates(items, oldResult, newResult, 10, callback));
+        assertEquals(Arrays.asList("remove 1 2", "insert 2 2"), callback.updates);
+    }
+
+    @Test
+    public void dispatchesNothingForEqualResults() {
+        List<Integer> result = Arrays.asList(items.get(3), items.get(4));
+        assertTrue(FilterDiff.dispatchUpdates(items, result, result, 10, callback));
+        assertTrue(callback.updates.isEmpty());
+    }
+
+    @Test
+    public void turnsAnEmptyResultIntoOneInsert() {
+        assertTrue(FilterDiff.dispatchUpdates(items, Collections.<Integer>emptyList(), items, 10, callback));
+        assertEquals(Collections.singletonList("insert 0 10"), callback.updates);
+    }
+
+    @Test
+    public void dispatchesChangesAtBothEnds() {
+        List<Integer> oldResult = Arrays.asList(items.get(0), items.get(1), items.get(2), items.get(3));
+        List<Integer> newResult = Arrays.asList(items.get(2), items.get(3), items.get(8), items.get(9));
+        assertTrue(FilterDiff.dispatchUpdates(items, oldResult, newResult, 10, callback));
+        assertEquals(Arrays.asList("remove 0 2", "insert 2 2"), callback.updates);
+    }
+
+    @Test
+    public void givesUpWhenTooManyRangesAreNeeded() {
+        List<Integer> oldResult = Arrays.asList(items.get(0), items.get(2), items.get(4), items.get(6));
+        List<Integer> newResult = Arrays.asList(items.get(1), items.get(3), items.get(5), items.get(7));
+        assertFalse(FilterDiff.dispatchUpdates(items, oldResult, newResult, 2, callback));
+        assertTrue(callback.updates.isEmpty());
+    }
+
+    @Test
+    public void givesUpWhenAResultIsNotInListOrder() {
+        List<Integer> oldResult = Arrays.asList(items.get(1), items.get(2));
+        List<Integer> newResult = Arrays.asList(items.get(5), items.get(1));
+        assertFalse(FilterDiff.dispatchUpdates(items, oldResult, newResult, 10, callback));
+        assertTrue(callback.updates.isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FilterRankIndexTest {
+
+    @Test
+    public void matchesAWalkOverTheListUnderRandomChanges() {
+        Random random = new Random(1);
+        FilterRankIndex index = new FilterRankIndex();
+        List<Object> items = new ArrayList<>();
+        List<Object> result = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(4);
+            if (operation == 0 || items.isEmpty()) {
+                int position = random.nextInt(items.size() + 1);
+                items.add(position, new Object());
+                index.onInserted(position, false);
+            } else if (operation == 1) {
+                int position = random.nextInt(items.size());
+                result.remove(items.remove(position));
+                index.onRemoved(position);
+            } else {
+                int position = random.nextInt(items.size());
+                Object item = items.get(position);
+                int resultPosition = result.indexOf(item);
+                if (resultPosition != -1) {
+                    result.remove(resultPosition);
+                    index.setShown(position, false);
+                } else {
+                    resultPosition = index.positionInResult(items, result, position);
+                    assertEquals(walk(items, result, position), resultPosition);
+                    result.add(resultPosition, item);
+                    index.setShown(position, true);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void marksAppendedItemsThatAreShown() {
+        FilterRankIndex index = new FilterRankIndex();
+        List<Object> items = new ArrayList<>();
+        List<Object> result = new ArrayList<>();
+        items.add(new Object());
+        items.add(new Object());
+        //builds the index, so the appends below are tracked instead of rebuilt
+        assertEquals(0, index.positionInResult(items, result, 0));
+        List<Object> appended = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            appended.add(new Object());
+        }
+        List<Object> shown = new ArrayList<>();
+        shown.add(appended.get(1));
+        shown.add(appended.get(3));
+        items.addAll(appended);
+        result.addAll(shown);
+        index.onAppended(appended, shown);
+        assertEquals(1, index.positionInResult(items, result, 4));
+        assertEquals(0, index.positionInResult(items, result, 2));
+    }
+
+    private static int walk(List<Object> items, List<Object> result, int position) {
+        int resultPosition = 0;
+        for (int i = 0; i < position && resultPosition < result.size(); i++) {
+            if (result.get(resultPosition) == items.get(i)) {
+                resultPosition++;
+            }
+        }
+        return resultPosition;
+    }
+}
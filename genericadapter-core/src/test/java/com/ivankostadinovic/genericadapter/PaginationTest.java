@@ -0,0 +1,63 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PaginationTest {
+
+    private static final int OFFSET = 3;
+
+    private int shownCount = 20;
+    private int loadedCount = 20;
+    private final List<Integer> requests = new ArrayList<>();
+    private final Pagination pagination = new Pagination(() -> shownCount, () -> loadedCount,
+        (previous, count) -> requests.add(count));
+
+    @Test
+    public void requestsThePageWhenTheRowAtTheOffsetIsBound() {
+        pagination.onItemBound(shownCount - OFFSET - 1, OFFSET);
+        assertTrue(requests.isEmpty());
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        assertEquals(Collections.singletonList(20), requests);
+        assertEquals(Pagination.State.LOADING, pagination.getState());
+    }
+
+    @Test
+    public void requestsTheNextPageOnceTheItemsArrived() {
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        shownCount = loadedCount = 40;
+        pagination.onItemsAdded(20);
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        assertEquals(Arrays.asList(20, 40), requests);
+    }
+
+    @Test
+    public void doesNotRequestPagesWhileAFilterHidesItems() {
+        //a narrow query shows 5 of the 20 loaded items
+        shownCount = 5;
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        pagination.onScrolled(0, shownCount - 1);
+        assertTrue(requests.isEmpty());
+        //clearing the query shows all loaded items again
+        shownCount = loadedCount;
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        assertEquals(Collections.singletonList(20), requests);
+    }
+
+    @Test
+    public void anEmptyPageEndsTheList() {
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        pagination.onItemsAdded(0);
+        assertEquals(Pagination.State.END_REACHED, pagination.getState());
+        pagination.onItemBound(shownCount - OFFSET, OFFSET);
+        assertEquals(Collections.singletonList(20), requests);
+    }
+}
@@ -0,0 +1,104 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PositionIndexTest {
+
+    private final PositionIndex<String> index = new PositionIndex<>();
+    private final List<String> items = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        index.setKeyExtractor(item -> item.substring(0, item.indexOf(':')));
+        for (int i = 0; i < 10; i++) {
+            items.add(i + ":item");
+        }
+    }
+
+    @Test
+    public void findsItemsByKey() {
+        assertEquals(3, index.indexOfKey(items, "3"));
+        assertEquals(-1, index.indexOfKey(items, "missing"));
+        assertEquals(7, index.indexOf(items, "7:changed"));
+    }
+
+    @Test
+    public void followsInsertsRemovesAndChanges() {
+        index.indexOfKey(items, "0");
+        items.add(2, "a:item");
+        index.onInserted(items, 2, 1);
+        items.remove(5);
+        index.onRemoved(5);
+        items.set(0, "b:item");
+        index.onChanged(0, "b:item");
+        items.add("c:item");
+        index.onInserted(items, items.size() - 1, 1);
+        assertAllFound();
+        assertEquals(-1, index.indexOfKey(items, "0"));
+        assertEquals(-1, index.indexOfKey(items, "4"));
+    }
+
+    @Test
+    public void staysConsistentWhenItRunsOutOfSlots() {
+        Random random = new Random(1);
+        index.indexOfKey(items, "0");
+        for (int i = 0; i < 2000; i++) {
+            if (random.nextInt(3) == 0 && !items.isEmpty()) {
+                int position = random.nextInt(items.size());
+                items.remove(position);
+                index.onRemoved(position);
+            } else {
+                int position = random.nextInt(items.size() + 1);
+                items.add(position, "n" + i + ":item");
+                index.onInserted(items, position, 1);
+            }
+            if (i % 50 == 0) {
+                assertAllFound();
+            }
+        }
+        assertAllFound();
+    }
+
+    @Test
+    public void fallsBackToEqualsWithoutAKeyExtractor() {
+        PositionIndex<String> plainIndex = new PositionIndex<>();
+        assertEquals(4, plainIndex.indexOf(items, "4:item"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void keyLookupsRequireAKeyExtractor() {
+        new PositionIndex<String>().indexOfKey(items, "4");
+    }
+
+    @Test
+    public void reindexesWhenTheKeyExtractorChanges() {
+        assertEquals(3, index.indexOfKey(items, "3"));
+        index.setKeyExtractor(item -> item.substring(item.indexOf(':') + 1) + item.substring(0, item.indexOf(':')));
+        assertEquals(-1, index.indexOfKey(items, "3"));
+        assertEquals(3, index.indexOfKey(items, "item3"));
+    }
+
+    @Test
+    public void rebuildsAfterTheListWasReplaced() {
+        index.indexOfKey(items, "0");
+        items.clear();
+        items.add("x:item");
+        items.add("0:item");
+        index.invalidate();
+        assertEquals(1, index.indexOfKey(items, "0"));
+        assertAllFound();
+    }
+
+    private void assertAllFound() {
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, index.indexOf(items, items.get(i)));
+        }
+    }
+}
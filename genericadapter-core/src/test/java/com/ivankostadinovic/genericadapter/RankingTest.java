@@ -0,0 +1,74 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RankingTest {
+
+    private static final FilterEngine.CancellationSignal NOT_CANCELLED = () -> false;
+
+    @Test
+    public void keepsTheBestItemsInScoreOrder() {
+        Random random = new Random(1);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(random.nextInt(100000));
+        }
+        Ranking<Integer> ranking = Ranking.rank(items, "", (item, query, ranges) -> item % 3 == 0 ? 0 : item, 20, NOT_CANCELLED);
+        List<Integer> expected = new ArrayList<>();
+        for (Integer item : items) {
+            if (item % 3 != 0) {
+                expected.add(item);
+            }
+        }
+        Collections.sort(expected, Collections.reverseOrder());
+        assertEquals(expected.subList(0, 20), ranking.getItems());
+        assertFalse(ranking.isComplete());
+    }
+
+    @Test
+    public void keepsTheListOrderForEqualScores() {
+        List<String> items = Arrays.asList("b1", "a1", "b2", "a2", "b3");
+        Ranking<String> ranking = Ranking.rank(items, "", (item, query, ranges) -> item.startsWith("a") ? 2 : 1, 3, NOT_CANCELLED);
+        assertEquals(Arrays.asList("a1", "a2", "b1"), ranking.getItems());
+    }
+
+    @Test
+    public void isCompleteWhenEveryMatchFits() {
+        List<String> items = Arrays.asList("radio one", "tv", "radio two");
+        Ranking<String> ranking = Ranking.rank(items, "radio", new SubsequenceScorer<>(item -> item), 10, NOT_CANCELLED);
+        assertEquals(2, ranking.getItems().size());
+        assertTrue(ranking.isComplete());
+        MatchRanges ranges = ranking.getMatchRanges("radio one");
+        assertEquals(1, ranges.size());
+        assertEquals(0, ranges.getStart(0));
+        assertEquals(5, ranges.getEnd(0));
+    }
+
+    @Test
+    public void onlyKeepsMatchRangesOfRankedItems() {
+        List<String> items = Arrays.asList("radio one", "radio two", "radio three");
+        Ranking<String> ranking = Ranking.rank(items, "radio", new SubsequenceScorer<>(item -> item), 2, NOT_CANCELLED);
+        assertEquals(2, ranking.getItems().size());
+        assertFalse(ranking.isComplete());
+        for (String item : items) {
+            assertEquals(ranking.getItems().contains(item), ranking.getMatchRanges(item) != null);
+        }
+    }
+
+    @Test
+    public void returnsNullWhenCancelled() {
+        List<Integer> items = ChunkedListTest.range(0, 1000);
+        assertNull(Ranking.rank(items, "", (item, query, ranges) -> 1, 10, () -> true));
+    }
+}
@@ -0,0 +1,32 @@
+package com.ivankostadinovic.genericadapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the updates it receives as readable strings, like "insert 2 3".
+ */
+class RecordingCallback implements UpdateCallback {
+
+    final List<String> updates = new ArrayList<>();
+
+    @Override
+    public void onInserted(int position, int count) {
+        updates.add("insert " + position + " " + count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        updates.add("remove " + position + " " + count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        updates.add("move " + fromPosition + " " + toPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        updates.add("change " + position + " " + count + " " + payload);
+    }
+}
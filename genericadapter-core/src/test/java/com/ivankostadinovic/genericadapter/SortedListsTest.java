@@ -0,0 +1,68 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.ivankostadinovic.genericadapter.ChunkedListTest.listOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortedListsTest {
+
+    private static final Comparator<String> BY_LENGTH = (first, second) -> Integer.compare(first.length(), second.length());
+
+    @Test
+    public void mergesAndReportsEveryRunOfAdditions() {
+        List<Integer> sorted = listOf(1, 3, 5, 7);
+        List<String> runs = new ArrayList<>();
+        List<Integer> merged = SortedLists.merge(sorted, listOf(8, 2, 4, 0, 9), Integer::compare,
+            (position, items) -> runs.add(position + " " + items));
+        assertEquals(listOf(0, 1, 2, 3, 4, 5, 7, 8, 9), merged);
+        assertEquals(Arrays.asList("0 [0]", "2 [2]", "4 [4]", "7 [8, 9]"), runs);
+        assertTrue(merged instanceof ChunkedList);
+        assertEquals(listOf(1, 3, 5, 7), sorted);
+    }
+
+    @Test
+    public void placesAdditionsAfterEqualItems() {
+        List<String> merged = SortedLists.merge(Arrays.asList("a", "bb", "cc"), Arrays.asList("dd", "e"), BY_LENGTH,
+            (position, items) -> {
+            });
+        assertEquals(Arrays.asList("a", "e", "bb", "cc", "dd"), merged);
+        assertEquals(4, SortedLists.insertionPoint(merged.subList(0, 4), "ff", BY_LENGTH));
+    }
+
+    @Test
+    public void mergesIntoAnEmptyListAndReportsNothingForNoAdditions() {
+        List<String> runs = new ArrayList<>();
+        List<Integer> merged = SortedLists.merge(new ArrayList<>(), listOf(3, 1, 2), Integer::compare,
+            (position, items) -> runs.add(position + " " + items));
+        assertEquals(listOf(1, 2, 3), merged);
+        assertEquals(Arrays.asList("0 [1, 2, 3]"), runs);
+        runs.clear();
+        assertEquals(listOf(1, 2, 3), SortedLists.merge(merged, new ArrayList<>(), Integer::compare,
+            (position, items) -> runs.add(position + " " + items)));
+        assertTrue(runs.isEmpty());
+    }
+
+    @Test
+    public void findsInsertionPoints() {
+        List<Integer> sorted = listOf(1, 3, 3, 5);
+        assertEquals(0, SortedLists.insertionPoint(sorted, 0, Integer::compare));
+        assertEquals(3, SortedLists.insertionPoint(sorted, 3, Integer::compare));
+        assertEquals(4, SortedLists.insertionPoint(sorted, 9, Integer::compare));
+    }
+
+    @Test
+    public void checksWhetherAnItemIsStillInOrder() {
+        List<Integer> sorted = listOf(1, 3, 9, 5);
+        assertTrue(SortedLists.isInOrder(sorted, 0, Integer::compare));
+        assertFalse(SortedLists.isInOrder(sorted, 2, Integer::compare));
+        assertFalse(SortedLists.isInOrder(sorted, 3, Integer::compare));
+    }
+}
@@ -0,0 +1,111 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateBatchTest {
+
+    private final UpdateBatch batch = new UpdateBatch();
+    private final RecordingCallback callback = new RecordingCallback();
+
+    @Test
+    public void mergesAdjacentInserts() {
+        batch.onInserted(5, 1);
+        batch.onInserted(6, 2);
+        batch.onInserted(5, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Collections.singletonList("insert 5 4"), callback.updates);
+    }
+
+    @Test
+    public void mergesAdjacentRemoves() {
+        batch.onRemoved(5, 1);
+        batch.onRemoved(5, 1);
+        batch.onRemoved(4, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Collections.singletonList("remove 4 3"), callback.updates);
+    }
+
+    @Test
+    public void foldsChangesAndRemovesIntoTheInsertBeforeThem() {
+        batch.onInserted(2, 3);
+        batch.onChanged(3, 1, null);
+        batch.onRemoved(2, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Collections.singletonList("insert 2 2"), callback.updates);
+    }
+
+    @Test
+    public void mergesOverlappingChangesWithTheSamePayload() {
+        Object payload = new Object();
+        batch.onChanged(1, 2, payload);
+        batch.onChanged(3, 2, payload);
+        batch.onChanged(4, 1, null);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Arrays.asList("change 1 4 " + payload, "change 4 1 null"), callback.updates);
+    }
+
+    @Test
+    public void mergesPastOperationsTheChangeDoesNotOverlap() {
+        batch.onInserted(5, 1);
+        batch.onChanged(40, 1, null);
+        batch.onInserted(6, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Arrays.asList("insert 5 2", "change 41 1 null"), callback.updates);
+    }
+
+    @Test
+    public void foldsRemovesIntoAnEarlierInsertAndShiftsTheLaterOperations() {
+        batch.onInserted(2, 3);
+        batch.onRemoved(20, 2);
+        batch.onChanged(10, 1, null);
+        batch.onRemoved(2, 3);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Arrays.asList("remove 17 2", "change 7 1 null"), callback.updates);
+    }
+
+    @Test
+    public void doesNotMergePastAnOverlappingOperation() {
+        batch.onInserted(5, 2);
+        batch.onChanged(4, 4, "payload");
+        batch.onInserted(6, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Arrays.asList("insert 5 2", "change 4 4 payload", "insert 6 1"), callback.updates);
+    }
+
+    @Test
+    public void keepsMovesInOrder() {
+        batch.onMoved(1, 4);
+        batch.onInserted(0, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Arrays.asList("move 1 4", "insert 0 1"), callback.updates);
+    }
+
+    @Test
+    public void refreshAllDropsTheRecordedChanges() {
+        batch.onChanged(1, 1, "payload");
+        batch.refreshAll();
+        batch.onInserted(0, 1);
+        assertFalse(batch.dispatchTo(callback));
+        assertTrue(callback.updates.isEmpty());
+        //the next batch starts empty
+        batch.onInserted(0, 1);
+        assertTrue(batch.dispatchTo(callback));
+        assertEquals(Collections.singletonList("insert 0 1"), callback.updates);
+    }
+
+    @Test
+    public void tooManyOperationsRefreshTheWholeList() {
+        for (int i = 0; i < 101; i++) {
+            batch.onChanged(i * 2, 1, null);
+        }
+        assertFalse(batch.dispatchTo(callback));
+        assertTrue(callback.updates.isEmpty());
+    }
+}
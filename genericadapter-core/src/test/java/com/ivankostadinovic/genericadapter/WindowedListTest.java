@@ -0,0 +1,69 @@
+package com.ivankostadinovic.genericadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WindowedListTest {
+
+    private final List<Integer> loadedPages = new ArrayList<>();
+    private WindowedList<Integer> list;
+
+    private void loadPage(int pageIndex, int offset, int count) {
+        loadedPages.add(pageIndex);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(offset + i);
+        }
+        list.setPage(pageIndex, items);
+    }
+
+    private void appendItems(int count) {
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+    }
+
+    @Test
+    public void evictsThePagesFarthestFromTheShownRows() {
+        list = new WindowedList<>(10, 3, this::loadPage);
+        appendItems(50);
+        assertEquals(50, list.size());
+        assertTrue(list.isLoaded(0));
+        assertTrue(list.isLoaded(10));
+        assertFalse(list.isLoaded(25));
+        assertNull(list.get(25));
+        //the last page is never evicted, items are appended to it
+        assertEquals(Integer.valueOf(45), list.get(45));
+    }
+
+    @Test
+    public void showingAnEvictedRowLoadsItsPageAgain() {
+        list = new WindowedList<>(10, 3, this::loadPage);
+        appendItems(50);
+        assertEquals(Integer.valueOf(25), list.getShown(25));
+        assertFalse(list.isLoaded(0));
+        assertNull(list.get(5));
+        assertEquals(Integer.valueOf(5), list.getShown(5));
+        assertEquals(Arrays.asList(2, 0), loadedPages);
+        assertTrue(list.isLoaded(49));
+    }
+
+    @Test
+    public void shrinkingDropsThePagesPastTheEnd() {
+        list = new WindowedList<>(10, 3, this::loadPage);
+        list.setSize(30);
+        assertEquals(Integer.valueOf(25), list.getShown(25));
+        list.setSize(15);
+        list.setSize(30);
+        assertFalse(list.isLoaded(25));
+        assertNull(list.get(25));
+    }
+}
@@ -0,0 +1,294 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.databinding.DataBindingUtil;
+import androidx.databinding.ViewDataBinding;
+import androidx.databinding.library.baseAdapters.BR;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * The parts of the adapters that do not depend on how they keep their items. Every adapter creates one
+ * and forwards to it, like it does to Pagination and FilterEngine, so the behaviour is the same in all of them.
+ */
+final class AdapterDelegate<T, D extends ViewDataBinding> {
+
+    /**
+     * The adapter methods the delegate calls back, all of them are public methods of the adapters.
+     */
+    interface Host<T, D extends ViewDataBinding> {
+        int getItemCount();
+
+        T getItem(int position);
+
+        void onCreateHolder(D dataBinding);
+
+        void onBindData(T model, int position, D dataBinding);
+
+        void onBindPartial(T model, List<Object> payloads, D dataBinding);
+
+        void loadMoreItems(int loadedCount);
+
+        void loadPreviousItems(int loadedCount);
+
+        void onPrefetch(T item);
+
+        void onCancelPrefetch(T item);
+
+        void setItems(List<T> items);
+
+        void beginBatch();
+
+        void commitBatch();
+
+        void addItem(T item);
+
+        void updateItem(T item);
+
+        void removeItem(T item);
+    }
+
+    interface PlaceholderBinder<D extends ViewDataBinding> {
+        void onBindPlaceholder(int position, D dataBinding);
+    }
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final Host<T, D> host;
+    private final Pagination pagination;
+    private final PaginationScrollListener paginationScrollListener;
+    private final ViewTypeRegistry<T> viewTypes = new ViewTypeRegistry<>();
+    private final HolderWarmUp warmUp = new HolderWarmUp();
+    private final PrefetchWindow<T> prefetchWindow;
+    private final PrefetchScrollListener prefetchScrollListener;
+    private MetricsRecorder metrics;
+    private PlaceholderBinder<D> placeholderBinder;
+    private ItemIdExtractor<T> idExtractor;
+
+    /**
+     * loadedCount returns the number of loaded items, which filter adapters report instead of the shown rows.
+     */
+    <A extends RecyclerView.Adapter<?> & Host<T, D>> AdapterDelegate(A adapter, Pagination.Count loadedCount) {
+        this.adapter = adapter;
+        this.host = adapter;
+        this.pagination = new Pagination(adapter::getItemCount, loadedCount, this::requestPage);
+        this.paginationScrollListener = new PaginationScrollListener(pagination);
+        this.prefetchWindow = new PrefetchWindow<>(adapter::getItemCount, adapter::getItem, adapter::onPrefetch, adapter::onCancelPrefetch);
+        this.prefetchScrollListener = new PrefetchScrollListener(prefetchWindow);
+    }
+
+    /**
+     * Called by the constructors that take an id extractor, before the adapter has observers.
+     */
+    void setIdExtractor(ItemIdExtractor<T> idExtractor) {
+        this.idExtractor = idExtractor;
+        adapter.setHasStableIds(true);
+    }
+
+    long getItemId(T item) {
+        return idExtractor != null ? idExtractor.getItemId(item) : RecyclerView.NO_ID;
+    }
+
+    Pagination getPagination() {
+        return pagination;
+    }
+
+    /**
+     * Returns the recorder of the current metrics listener, or null if nothing is measured.
+     */
+    MetricsRecorder getMetrics() {
+        return metrics;
+    }
+
+    void setMetricsListener(MetricsListener listener, long reportIntervalMillis) {
+        if (metrics != null) {
+            metrics.stop();
+        }
+        metrics = listener != null ? new MetricsRecorder(adapter, listener, reportIntervalMillis) : null;
+    }
+
+    private void requestPage(boolean previous, int loadedCount) {
+        if (metrics != null) {
+            metrics.onPageRequested();
+        }
+        if (previous) {
+            host.loadPreviousItems(loadedCount);
+        } else {
+            host.loadMoreItems(loadedCount);
+        }
+    }
+
+    /**
+     * Called by addItems, which is how pages are delivered.
+     */
+    void onItemsAdded(int count) {
+        if (metrics != null) {
+            metrics.onItemsAdded();
+        }
+        pagination.onItemsAdded(count);
+    }
+
+    void setViewType(Class<? extends T> itemClass, int layoutResId) {
+        viewTypes.register(itemClass, layoutResId);
+    }
+
+    void setViewType(Class<? extends T> itemClass, int layoutResId, int maxRecycledViews) {
+        viewTypes.register(itemClass, layoutResId);
+        viewTypes.setMaxRecycledViews(layoutResId, maxRecycledViews);
+    }
+
+    void setViewTypeResolver(ViewTypeResolver<T> resolver) {
+        viewTypes.setResolver(resolver);
+    }
+
+    void setMaxRecycledViews(int layoutResId, int maxRecycledViews) {
+        viewTypes.setMaxRecycledViews(layoutResId, maxRecycledViews);
+    }
+
+    void setPrefetchDistance(int distance, Scheduler scheduler) {
+        prefetchWindow.setDistance(distance, scheduler);
+    }
+
+    void setWarmUpCount(int layoutResId, int count) {
+        warmUp.setCount(layoutResId, count);
+    }
+
+    int getWarmCreateCount() {
+        return warmUp.getWarmCreateCount();
+    }
+
+    int getColdCreateCount() {
+        return warmUp.getColdCreateCount();
+    }
+
+    int getItemViewType(T item) {
+        return viewTypes.getViewType(item);
+    }
+
+    /**
+     * Binds null items with the binder instead of onBindData, for the rows of windowed lists
+     * whose page is not loaded. Pass null when the items can't be null anymore.
+     */
+    void setPlaceholderBinder(PlaceholderBinder<D> placeholderBinder) {
+        this.placeholderBinder = placeholderBinder;
+    }
+
+    void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        viewTypes.applyPoolSizes(recyclerView.getRecycledViewPool());
+        warmUp.start(recyclerView);
+        recyclerView.addOnScrollListener(paginationScrollListener);
+        recyclerView.addOnScrollListener(prefetchScrollListener);
+    }
+
+    void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        warmUp.stop();
+        recyclerView.removeOnScrollListener(paginationScrollListener);
+        recyclerView.removeOnScrollListener(prefetchScrollListener);
+        prefetchWindow.cancelAll();
+    }
+
+    void onViewRecycled(BindingViewHolder<D> holder) {
+        holder.recycled = metrics != null;
+    }
+
+    /**
+     * Returns the binding of a new view holder, taken from the warmed up ones or inflated,
+     * with the layout of the view type or the default layout of the adapter.
+     */
+    D createBinding(ViewGroup parent, int viewType, int defaultLayoutResId) {
+        int layoutResId = viewTypes.getLayoutResId(viewType, defaultLayoutResId);
+        D dataBinding = warmUp.take(layoutResId);
+        MetricsRecorder metrics = this.metrics;
+        if (dataBinding == null) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            dataBinding = DataBindingUtil.inflate(LayoutInflater.from(parent.getContext()), layoutResId, parent, false);
+            if (metrics != null) {
+                metrics.recordInflate(start);
+            }
+        } else if (metrics != null) {
+            metrics.recordWarmCreate();
+        }
+        host.onCreateHolder(dataBinding);
+        return dataBinding;
+    }
+
+    void bind(BindingViewHolder<D> holder, T item, int position, int paginationOffset) {
+        MetricsRecorder metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (item == null && placeholderBinder != null) {
+            placeholderBinder.onBindPlaceholder(position, holder.dataBinding);
+        } else {
+            holder.dataBinding.setVariable(BR.data, item);
+            host.onBindData(item, position, holder.dataBinding);
+        }
+        long bound = metrics != null ? System.nanoTime() : 0;
+        holder.dataBinding.executePendingBindings();
+        if (metrics != null) {
+            metrics.recordBind(start, bound, holder.recycled);
+            holder.recycled = false;
+        }
+        pagination.onItemBound(position, paginationOffset);
+    }
+
+    /**
+     * Rebinds only what the payloads refer to, or binds the whole item if there are no payloads
+     * or the item is a placeholder.
+     */
+    void bindPartial(BindingViewHolder<D> holder, T item, int position, int paginationOffset, List<Object> payloads) {
+        if (payloads.isEmpty() || (item == null && placeholderBinder != null)) {
+            bind(holder, item, position, paginationOffset);
+            return;
+        }
+        MetricsRecorder metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        host.onBindPartial(item, payloads, holder.dataBinding);
+        long bound = metrics != null ? System.nanoTime() : 0;
+        holder.dataBinding.executePendingBindings();
+        if (metrics != null) {
+            metrics.recordBind(start, bound, false);
+        }
+    }
+
+    Disposable bindItems(Flowable<? extends List<T>> snapshots) {
+        FrameCoalescer<List<T>> coalescer = FrameCoalescer.latest(values -> host.setItems(values.get(0)));
+        snapshots.subscribe(coalescer);
+        return coalescer;
+    }
+
+    /**
+     * keyExtractor is the extractor set when this is called, later changes of it don't apply to the binding.
+     */
+    Disposable bindItemChanges(Flowable<ItemChange<T>> changes, int maxPendingChanges, ItemKeyExtractor<T> keyExtractor) {
+        FrameCoalescer<ItemChange<T>> coalescer = FrameCoalescer.merging(maxPendingChanges, ItemChange.merger(keyExtractor), this::applyItemChanges);
+        changes.subscribe(coalescer);
+        return coalescer;
+    }
+
+    private void applyItemChanges(List<ItemChange<T>> changes) {
+        host.beginBatch();
+        try {
+            for (ItemChange<T> change : changes) {
+                switch (change.getType()) {
+                    case ADDED:
+                        host.addItem(change.getItem());
+                        break;
+                    case UPDATED:
+                        host.updateItem(change.getItem());
+                        break;
+                    case REMOVED:
+                        host.removeItem(change.getItem());
+                        break;
+                }
+            }
+        } finally {
+            //a change that throws must not leave the adapter batching for good
+            host.commitBatch();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * What an adapter spent its time on during one report interval. Times are in nanoseconds.
+ * Holders are either inflated, taken from the warmed up holders, or reused from the RecyclerView pool.
+ */
+public final class AdapterMetrics {
+
+    final Histogram inflateTimes = new Histogram();
+    final Histogram bindTimes = new Histogram();
+    final Histogram executeBindingsTimes = new Histogram();
+    final Histogram filterTimes = new Histogram();
+    final Histogram filterResultSizes = new Histogram();
+    final Histogram diffTimes = new Histogram();
+    final Histogram pageLoadTimes = new Histogram();
+    long warmCreateCount;
+    long reuseCount;
+    long fullRefreshCount;
+    long insertedRows;
+    long removedRows;
+    long changedRows;
+    long movedRows;
+    long intervalMillis;
+
+    /**
+     * Time spent inflating layouts in onCreateViewHolder.
+     */
+    public Histogram getInflateTimes() {
+        return inflateTimes;
+    }
+
+    /**
+     * Time spent in onBindData, or onBindPartial for changes with payloads.
+     */
+    public Histogram getBindTimes() {
+        return bindTimes;
+    }
+
+    public Histogram getExecuteBindingsTimes() {
+        return executeBindingsTimes;
+    }
+
+    /**
+     * Time spent filtering the items for a query, on the main or a background thread.
+     */
+    public Histogram getFilterTimes() {
+        return filterTimes;
+    }
+
+    public Histogram getFilterResultSizes() {
+        return filterResultSizes;
+    }
+
+    /**
+     * Time from submitting a list until it is displayed in the ListAdapter based adapters,
+     * time spent dispatching filter changes in the others.
+     */
+    public Histogram getDiffTimes() {
+        return diffTimes;
+    }
+
+    /**
+     * Time from requesting a page until the items are added.
+     */
+    public Histogram getPageLoadTimes() {
+        return pageLoadTimes;
+    }
+
+    public long getInflateCount() {
+        return inflateTimes.getCount();
+    }
+
+    public long getWarmCreateCount() {
+        return warmCreateCount;
+    }
+
+    /**
+     * Number of binds of holders that were recycled into the pool, the pool hits.
+     */
+    public long getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * Number of notifyDataSetChanged calls, each rebinds every shown row.
+     */
+    public long getFullRefreshCount() {
+        return fullRefreshCount;
+    }
+
+    public long getInsertedRows() {
+        return insertedRows;
+    }
+
+    public long getRemovedRows() {
+        return removedRows;
+    }
+
+    public long getChangedRows() {
+        return changedRows;
+    }
+
+    public long getMovedRows() {
+        return movedRows;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    boolean isEmpty() {
+        return bindTimes.getCount() == 0 && filterTimes.getCount() == 0 && diffTimes.getCount() == 0
+            && pageLoadTimes.getCount() == 0 && inflateTimes.getCount() == 0 && warmCreateCount == 0
+            && fullRefreshCount == 0 && insertedRows + removedRows + changedRows + movedRows == 0;
+    }
+
+    /**
+     * Returns the metrics as a JSON object, for logging them in a form that can be compared between builds.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        appendField(json, "intervalMillis", intervalMillis);
+        appendField(json, "inflateCount", getInflateCount());
+        appendField(json, "warmCreateCount", warmCreateCount);
+        appendField(json, "reuseCount", reuseCount);
+        appendField(json, "fullRefreshCount", fullRefreshCount);
+        appendField(json, "insertedRows", insertedRows);
+        appendField(json, "removedRows", removedRows);
+        appendField(json, "changedRows", changedRows);
+        appendField(json, "movedRows", movedRows);
+        appendHistogram(json, "inflateTimes", inflateTimes);
+        appendHistogram(json, "bindTimes", bindTimes);
+        appendHistogram(json, "executeBindingsTimes", executeBindingsTimes);
+        appendHistogram(json, "filterTimes", filterTimes);
+        appendHistogram(json, "filterResultSizes", filterResultSizes);
+        appendHistogram(json, "diffTimes", diffTimes);
+        appendHistogram(json, "pageLoadTimes", pageLoadTimes);
+        json.setLength(json.length() - 1);
+        return json.append('}').toString();
+    }
+
+    private static void appendField(StringBuilder json, String name, long value) {
+        json.append('"').append(name).append("\":").append(value).append(',');
+    }
+
+    private static void appendHistogram(StringBuilder json, String name, Histogram histogram) {
+        json.append('"').append(name).append("\":{");
+        appendField(json, "count", histogram.getCount());
+        appendField(json, "p50", histogram.getP50());
+        appendField(json, "p95", histogram.getP95());
+        appendField(json, "p99", histogram.getP99());
+        appendField(json, "max", histogram.getMax());
+        appendField(json, "mean", histogram.getMean());
+        json.setLength(json.length() - 1);
+        json.append("},");
+    }
+}
@@ -0,0 +1,35 @@
+package com.ivankostadinovic.genericadapter;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Notifies the adapter of the changes reported by the core classes.
+ */
+final class AdapterUpdateCallback implements UpdateCallback {
+
+    private final RecyclerView.Adapter<?> adapter;
+
+    AdapterUpdateCallback(RecyclerView.Adapter<?> adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        adapter.notifyItemRangeInserted(position, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        adapter.notifyItemRangeRemoved(position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        adapter.notifyItemMoved(fromPosition, toPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        adapter.notifyItemRangeChanged(position, count, payload);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.view.View;
+
+import androidx.databinding.ViewDataBinding;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * The view holder of all adapters. The holder is its own click listener and looks up the clicked item
+ * when the click happens, so binding allocates nothing and the position is never stale after inserts or removes.
+ */
+abstract class BindingViewHolder<D extends ViewDataBinding> extends RecyclerView.ViewHolder implements View.OnClickListener {
+
+    final D dataBinding;
+    //only tracked for the metrics, to count binds of holders taken from the pool
+    boolean recycled;
+
+    BindingViewHolder(D binding) {
+        super(binding.getRoot());
+        dataBinding = binding;
+        binding.getRoot().setOnClickListener(this);
+    }
+
+    @Override
+    public void onClick(View view) {
+        int position = getBindingAdapterPosition();
+        if (position != RecyclerView.NO_POSITION) {
+            onItemClick(position);
+        }
+    }
+
+    abstract void onItemClick(int position);
+}
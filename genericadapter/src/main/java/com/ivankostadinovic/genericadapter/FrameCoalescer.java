@@ -0,0 +1,163 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.view.Choreographer;
+
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.rxjava3.core.FlowableSubscriber;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+
+/**
+ * Collects the values of a stream on any thread and hands them to the adapter at most once per frame,
+ * from a Choreographer frame callback on the main thread. Snapshots replace each other, so only the latest
+ * one is applied, and changes of the same item within a frame are merged where possible. At most maxPending
+ * values are requested from upstream until the next frame consumed them, so a burst waits upstream
+ * instead of piling up here or on the main thread.
+ */
+final class FrameCoalescer<E> implements FlowableSubscriber<E>, Disposable, Choreographer.FrameCallback {
+
+    interface Applier<E> {
+        void apply(List<E> values);
+    }
+
+    interface Merger<E> {
+        Object getKey(E value);
+
+        /**
+         * Returns one value with the effect of the pending value followed by the new one,
+         * or null if they can not be merged.
+         */
+        E merge(E pending, E value);
+    }
+
+    private final Choreographer choreographer;
+    private final int maxPending;
+    private final boolean latestOnly;
+    private final Merger<E> merger;
+    private final Applier<E> applier;
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+    private final Object lock = new Object();
+    private List<E> pending = new ArrayList<>();
+    private final Map<Object, Integer> pendingPositions = new HashMap<>();
+    private int received;
+    private volatile Subscription subscription;
+    private volatile boolean disposed;
+
+    private FrameCoalescer(int maxPending, boolean latestOnly, Merger<E> merger, Applier<E> applier) {
+        //the instance of the main thread, callbacks can be posted to it from any thread
+        this.choreographer = Choreographer.getInstance();
+        this.maxPending = maxPending;
+        this.latestOnly = latestOnly;
+        this.merger = merger;
+        this.applier = applier;
+    }
+
+    /**
+     * Applies the latest snapshot once per frame. Must be created on the main thread.
+     */
+    static <E> FrameCoalescer<E> latest(Applier<E> applier) {
+        return new FrameCoalescer<>(Integer.MAX_VALUE, true, null, applier);
+    }
+
+    /**
+     * Applies all values received since the last frame in order, each merged into the pending value
+     * with the same key where possible. Must be created on the main thread.
+     */
+    static <E> FrameCoalescer<E> merging(int maxPending, Merger<E> merger, Applier<E> applier) {
+        return new FrameCoalescer<>(maxPending, false, merger, applier);
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        if (disposed) {
+            subscription.cancel();
+        } else {
+            subscription.request(latestOnly ? Long.MAX_VALUE : maxPending);
+        }
+    }
+
+    @Override
+    public void onNext(E value) {
+        synchronized (lock) {
+            received++;
+            if (latestOnly) {
+                pending.clear();
+                pending.add(value);
+            } else {
+                add(value);
+            }
+        }
+        if (frameScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    private void add(E value) {
+        Object key = merger.getKey(value);
+        Integer position = pendingPositions.get(key);
+        if (position != null) {
+            E merged = merger.merge(pending.get(position), value);
+            if (merged != null) {
+                pending.set(position, merged);
+                return;
+            }
+        }
+        //later values of the key are merged into this one, so the order of the changes is kept
+        pendingPositions.put(key, pending.size());
+        pending.add(value);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        //like subscribe without an error consumer
+        RxJavaPlugins.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        List<E> values;
+        int consumed;
+        synchronized (lock) {
+            frameScheduled.set(false);
+            values = pending;
+            consumed = received;
+            pending = new ArrayList<>();
+            pendingPositions.clear();
+            received = 0;
+        }
+        if (disposed || values.isEmpty()) {
+            return;
+        }
+        applier.apply(values);
+        if (!latestOnly) {
+            subscription.request(consumed);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        Subscription subscription = this.subscription;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        choreographer.removeFrameCallback(this);
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
@@ -1,44 +1,76 @@
 package com.ivankostadinovic.genericadapter;
 
-import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
-import androidx.databinding.DataBindingUtil;
 import androidx.databinding.ViewDataBinding;
 import androidx.databinding.library.baseAdapters.BR;
 import androidx.recyclerview.widget.RecyclerView;
 
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+
 /**
  * @author manoj.bhadane manojbhadane777@gmail.com
  * edited by ivankostadinovic1994@outlook.com
  */
 
-public abstract class GenericAdapter<T, D extends ViewDataBinding> extends RecyclerView.Adapter<GenericAdapter<T, D>.ItemViewHolder> {
+public abstract class GenericAdapter<T, D extends ViewDataBinding> extends RecyclerView.Adapter<GenericAdapter<T, D>.ItemViewHolder>
+    implements AdapterDelegate.Host<T, D> {
 
     public static final int DEFAULT_PAGINATION_OFFSET = 3;
+    public static final int DEFAULT_MAX_PENDING_CHANGES = 1000;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    public static final long DEFAULT_METRICS_REPORT_INTERVAL_MILLIS = 1000;
 
-    public List<T> list = new ArrayList<>();
+    public List<T> list = new ChunkedList<>();
     private final int layoutResId;
+    private final AdapterDelegate<T, D> delegate = new AdapterDelegate<>(this, () -> list.size());
+    private final Pagination pagination = delegate.getPagination();
     private int paginationOffset = DEFAULT_PAGINATION_OFFSET;
+    private final PositionIndex<T> positionIndex = new PositionIndex<>();
+    private final UpdateCallback adapterUpdates = new AdapterUpdateCallback(this);
+    private final UpdateBatch batch = new UpdateBatch();
+    private int batchDepth;
+    private Comparator<T> comparator;
+    private WindowedList<T> windowedList;
 
     public GenericAdapter(List<T> arrayList, @LayoutRes int layoutResId) {
-        this.list.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
         this.layoutResId = layoutResId;
     }
 
     public GenericAdapter(List<T> arrayList, @LayoutRes int layoutResId, int paginationOffset) {
-        this.list = new ArrayList<>();
-        this.list.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
         this.layoutResId = layoutResId;
         this.paginationOffset = paginationOffset;
     }
 
+    /**
+     * Enables stable ids, so RecyclerView keeps the bound view holders of unchanged items
+     * even when the whole list is refreshed, and can animate the changes. Such adapters can't show windowed items.
+     */
+    public GenericAdapter(List<T> arrayList, @LayoutRes int layoutResId, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, DEFAULT_PAGINATION_OFFSET, idExtractor);
+    }
+
+    public GenericAdapter(List<T> arrayList, @LayoutRes int layoutResId, int paginationOffset, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, paginationOffset);
+        delegate.setIdExtractor(idExtractor);
+    }
+
     public abstract void onBindData(T model, int position, D dataBinding);
 
     public abstract void onItemClick(T model, int position);
@@ -46,28 +78,180 @@ public abstract class GenericAdapter<T, D extends ViewDataBinding> extends Recyc
     public void onCreateHolder(D dataBinding) {
     }
 
+    /**
+     * Called instead of onBindData when the item at the position changed with payloads,
+     * to rebind only the views the payloads refer to. By default it sets the data variable again.
+     */
+    public void onBindPartial(T model, List<Object> payloads, D dataBinding) {
+        dataBinding.setVariable(BR.data, model);
+    }
+
+    /**
+     * Binds a row of a windowed list whose page is not loaded yet. By default the data variable is set to null.
+     */
+    public void onBindPlaceholder(int position, D dataBinding) {
+        dataBinding.setVariable(BR.data, null);
+    }
+
     public void loadMoreItems(int loadedCount) {
 
     }
 
+    /**
+     * Called when one of the first rows is shown, if loading previous pages is enabled on getPagination.
+     */
+    public void loadPreviousItems(int loadedCount) {
+
+    }
+
+    /**
+     * Called on a background thread for items that are about to be scrolled into view, once setPrefetchDistance
+     * is set, to start loading their images or other resources so they are ready when the item is bound.
+     */
+    public void onPrefetch(T item) {
+
+    }
+
+    /**
+     * Called on the main thread when an item left the prefetch window while onPrefetch was still running for it,
+     * because the scroll direction changed or a fling skipped it.
+     */
+    public void onCancelPrefetch(T item) {
+
+    }
+
+    public void setPrefetchDistance(int distance) {
+        setPrefetchDistance(distance, PrefetchWindow.defaultScheduler());
+    }
+
+    /**
+     * Calls onPrefetch for the next distance items in the scroll direction, nearest first, on the scheduler.
+     * Items that leave the window before their turn are skipped. By default a scheduler with two low priority
+     * threads is shared by all adapters. DEFAULT_PREFETCH_DISTANCE is a good start, pass 0 to turn it off.
+     * This only warms up resources of loaded items, loadMoreItems still loads the items.
+     */
+    public void setPrefetchDistance(int distance, Scheduler scheduler) {
+        delegate.setPrefetchDistance(distance, scheduler);
+    }
+
+    /**
+     * Returns the pagination of the adapter, to report the state of requested pages
+     * and to configure prefetching, retries and loading in both directions.
+     */
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setMetricsListener(MetricsListener listener) {
+        setMetricsListener(listener, DEFAULT_METRICS_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Measures inflation, binding, filtering, diffing and page loads, and reports the histograms to the listener
+     * on the main thread every reportIntervalMillis, if anything was measured. Pass null to stop measuring,
+     * nothing is measured while no listener is set.
+     */
+    public void setMetricsListener(MetricsListener listener, long reportIntervalMillis) {
+        delegate.setMetricsListener(listener, reportIntervalMillis);
+    }
+
+    /**
+     * Shows items of itemClass, or of one of its subclasses, with their own layout.
+     * Every layout needs a data variable, and onBindData receives the binding of the item's layout,
+     * so adapters with several layouts should use ViewDataBinding as the binding type and check it.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId) {
+        delegate.setViewType(itemClass, layoutResId);
+    }
+
+    /**
+     * Also limits how many unused view holders of the layout RecyclerView keeps for reuse.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setViewType(itemClass, layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * Picks the layout of every item with the resolver instead of by its class.
+     */
+    public void setViewTypeResolver(ViewTypeResolver<T> resolver) {
+        delegate.setViewTypeResolver(resolver);
+    }
+
+    /**
+     * Limits how many unused view holders of the layout RecyclerView keeps for reuse.
+     * Call this before the adapter is attached to a RecyclerView.
+     */
+    public void setMaxRecycledViews(@LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setMaxRecycledViews(layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * Inflates count view holders of the layout in the background when the adapter is attached,
+     * so the first rows and new view types are not inflated while scrolling. Adapters with one layout
+     * pass the layout of the constructor. Call this before the adapter is attached to a RecyclerView.
+     */
+    public void setWarmUpCount(@LayoutRes int layoutResId, int count) {
+        delegate.setWarmUpCount(layoutResId, count);
+    }
+
+    /**
+     * Returns how many view holders were created from layouts inflated ahead of time.
+     */
+    public int getWarmCreateCount() {
+        return delegate.getWarmCreateCount();
+    }
+
+    /**
+     * Returns how many view holders of layouts with a warm-up count had to be inflated when they were needed.
+     */
+    public int getColdCreateCount() {
+        return delegate.getColdCreateCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        //rows of evicted pages are loaded here, so they get the view type of their item once it is loaded
+        return delegate.getItemViewType(getShownItem(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return delegate.getItemId(list.get(position));
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        delegate.onAttachedToRecyclerView(recyclerView);
+        super.onAttachedToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        delegate.onDetachedFromRecyclerView(recyclerView);
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ItemViewHolder holder) {
+        delegate.onViewRecycled(holder);
+        super.onViewRecycled(holder);
+    }
+
     @NonNull
     @Override
     public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        D dataBinding = DataBindingUtil.inflate(LayoutInflater.from(parent.getContext()), layoutResId, parent, false);
-        onCreateHolder(dataBinding);
-        return new ItemViewHolder(dataBinding);
+        return new ItemViewHolder(delegate.createBinding(parent, viewType, layoutResId));
     }
 
     @Override
     public void onBindViewHolder(@NonNull ItemViewHolder holder, final int position) {
-        final T item = list.get(position);
-        holder.dataBinding.setVariable(BR.data, item);
-        onBindData(item, position, holder.dataBinding);
-        holder.dataBinding.executePendingBindings();
-        holder.dataBinding.getRoot().setOnClickListener(view -> onItemClick(item, position));
-        if (position == getItemCount() - paginationOffset) {
-            loadMoreItems(list.size());
-        }
+        delegate.bind(holder, getShownItem(position), position, paginationOffset);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        delegate.bindPartial(holder, getShownItem(position), position, paginationOffset, payloads);
     }
 
     @Override
@@ -75,56 +259,300 @@ public abstract class GenericAdapter<T, D extends ViewDataBinding> extends Recyc
         return list.size();
     }
 
+    /**
+     * Matches items by the key returned by keyExtractor, for example an id, instead of equals.
+     * The positions of the keys are indexed, so looking up, updating and removing items by key
+     * takes logarithmic time. Keys have to be unique, and the list must only be changed
+     * through the adapter methods while an extractor is set.
+     */
+    public void setItemKeyExtractor(ItemKeyExtractor<T> keyExtractor) {
+        positionIndex.setKeyExtractor(keyExtractor);
+    }
+
+    /**
+     * Starts recording changes instead of notifying them one by one. Batches can be nested,
+     * the outermost commitBatch merges adjacent and overlapping changes and dispatches them at once.
+     * Call commitBatch in a finally block, a batch that is never committed keeps every later change recorded.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("commitBatch() called without beginBatch()");
+        }
+        if (--batchDepth == 0 && !batch.dispatchTo(adapterUpdates)) {
+            notifyDataSetChanged();
+        }
+    }
+
+    private UpdateCallback updates() {
+        return batchDepth > 0 ? batch : adapterUpdates;
+    }
+
+    private void refreshAll() {
+        if (batchDepth > 0) {
+            batch.refreshAll();
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Keeps the items sorted by the comparator. The current items are sorted once, after that addItem
+     * and updateItem place items with a binary search, and addItems merges the new items in linear time.
+     * The positions passed to addItem are ignored while a comparator is set. Pass null to turn it off.
+     */
+    public void setComparator(Comparator<T> comparator) {
+        if (comparator != null) {
+            checkNotWindowed("setComparator()");
+        }
+        this.comparator = comparator;
+        if (comparator != null) {
+            Collections.sort(list, comparator);
+            positionIndex.invalidate();
+            refreshAll();
+        }
+    }
+
+    /**
+     * Shows the items of a windowed list without copying them. Only the pages around the shown rows
+     * stay in memory, rows of evicted pages read as null and are bound with onBindPlaceholder until
+     * their page is loaded again, so view type resolvers and id extractors have to accept null.
+     * While a windowed list is set, items can only be added at the end or updated while their page is loaded.
+     * Comparators, removals and lookups by key or item need all items, so they are not supported. setItems ends this mode.
+     * Stable ids are not supported either, since evicted rows have no item to take the id from.
+     */
+    public void setWindowedItems(WindowedList<T> items) {
+        if (comparator != null) {
+            throw new IllegalStateException("setWindowedItems() is not supported while a comparator is set");
+        }
+        if (hasStableIds()) {
+            throw new IllegalStateException("setWindowedItems() is not supported with stable ids");
+        }
+        leaveWindowedMode();
+        windowedList = items;
+        items.setUpdateCallback(adapterUpdates);
+        delegate.setPlaceholderBinder(this::onBindPlaceholder);
+        list = items;
+        positionIndex.invalidate();
+        pagination.reset();
+        refreshAll();
+    }
+
+    /**
+     * Writes the items to file, so the next start can show them with restoreSnapshot before fresh items are loaded.
+     * The items are captured when this is called and written when the returned Completable is subscribed,
+     * subscribe it on a background scheduler. Windowed items can't be saved.
+     */
+    public Completable saveSnapshot(File file, ItemSerializer<T> serializer) {
+        checkNotWindowed("saveSnapshot()");
+        List<T> items = SnapshotList.snapshotOf(list);
+        return Completable.fromAction(() -> AdapterSnapshot.write(file, items, "", null, serializer));
+    }
+
+    /**
+     * Shows the items of a snapshot written by saveSnapshot. The file is mapped into memory and an item is only
+     * read when it is first accessed, so the first frame does not wait for the whole list. The items can be
+     * changed as usual, the first change reads all of them. Returns false if there is no snapshot yet.
+     */
+    public boolean restoreSnapshot(File file, ItemSerializer<T> serializer) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        AdapterSnapshot<T> snapshot = AdapterSnapshot.read(file, serializer);
+        pagination.reset();
+        leaveWindowedMode();
+        list = snapshot.getItems();
+        positionIndex.invalidate();
+        refreshAll();
+        return true;
+    }
+
+    /**
+     * Returns the item at the position, a windowed list moves its window there and loads the page if it was evicted.
+     */
+    private T getShownItem(int position) {
+        return windowedList != null ? windowedList.getShown(position) : list.get(position);
+    }
+
+    private void checkNotWindowed(String method) {
+        if (windowedList != null) {
+            throw new IllegalStateException(method + " is not supported for windowed items");
+        }
+    }
+
+    private void leaveWindowedMode() {
+        if (windowedList != null) {
+            //pages that are still loading must not notify this adapter anymore
+            windowedList.setUpdateCallback(null);
+            windowedList = null;
+            delegate.setPlaceholderBinder(null);
+        }
+    }
+
+    /**
+     * Shows the latest list emitted by snapshots, at most once per frame. Lists can be emitted on any thread,
+     * a list that was not shown yet is replaced by the next one, so bursts skip lists instead of queueing them.
+     * Must be called on the main thread, dispose the returned Disposable to unbind.
+     */
+    public Disposable bindItems(Flowable<? extends List<T>> snapshots) {
+        return delegate.bindItems(snapshots);
+    }
+
+    public Disposable bindItems(Observable<? extends List<T>> snapshots) {
+        return bindItems(snapshots.toFlowable(BackpressureStrategy.LATEST));
+    }
+
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes) {
+        return bindItemChanges(changes, DEFAULT_MAX_PENDING_CHANGES);
+    }
+
+    /**
+     * Applies the emitted changes at most once per frame, as one batch. Changes can be emitted on any thread,
+     * updates of an item that was not applied yet are merged into its pending change. At most maxPendingChanges
+     * are requested until a frame applied them, so bursts wait upstream and the main thread only gets
+     * a bounded amount of work per frame. Must be called on the main thread, dispose the returned Disposable to unbind.
+     * Pending changes are merged by the ItemKeyExtractor set when this is called, so set it first.
+     */
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes, int maxPendingChanges) {
+        return delegate.bindItemChanges(changes, maxPendingChanges, positionIndex.getKeyExtractor());
+    }
+
     public void setItems(List<T> arrayList) {
         if (list != arrayList) {
-            list = new ArrayList<>();
-            list.addAll(arrayList);
-            notifyDataSetChanged();
+            pagination.reset();
+            leaveWindowedMode();
+            list = ChunkedList.copyOf(arrayList);
+            if (comparator != null) {
+                Collections.sort(list, comparator);
+            }
+            positionIndex.invalidate();
+            refreshAll();
         }
     }
 
     public void addItems(List<T> list) {
+        delegate.onItemsAdded(list.size());
+        if (comparator != null) {
+            positionIndex.invalidate();
+            this.list = SortedLists.merge(this.list, list, comparator, (position, items) -> updates().onInserted(position, items.size()));
+            return;
+        }
         int currentSize = this.list.size();
         this.list.addAll(list);
-        notifyItemRangeInserted(currentSize, list.size());
+        positionIndex.onInserted(this.list, currentSize, list.size());
+        updates().onInserted(currentSize, list.size());
     }
 
     public void clearItems() {
+        pagination.reset();
         list.clear();
-        notifyDataSetChanged();
+        positionIndex.invalidate();
+        refreshAll();
     }
 
     public void removeItem(T item) {
-        int position = list.indexOf(item);
-        list.remove(item);
-        notifyItemRemoved(position);
+        checkNotWindowed("removeItem()");
+        int position = positionIndex.indexOf(list, item);
+        if (position != -1) {
+            removeItem(position);
+        }
     }
 
     public void removeItem(int position) {
+        checkNotWindowed("removeItem()");
         list.remove(position);
-        notifyItemRemoved(position);
+        positionIndex.onRemoved(position);
+        updates().onRemoved(position, 1);
+    }
+
+    public void removeItemByKey(Object key) {
+        int position = getItemPosition(key);
+        if (position != -1) {
+            removeItem(position);
+        }
     }
 
     public T getItem(int position) {
         return list.get(position);
     }
 
+    public T getItemByKey(Object key) {
+        int position = getItemPosition(key);
+        return position != -1 ? list.get(position) : null;
+    }
+
+    /**
+     * Returns the position of the item with the given key, or -1. Requires an ItemKeyExtractor.
+     */
+    public int getItemPosition(Object key) {
+        checkNotWindowed("getItemPosition()");
+        return positionIndex.indexOfKey(list, key);
+    }
+
+    /**
+     * Adds the item at its sorted position, or at the end if no comparator is set.
+     */
+    public void addItem(T item) {
+        addItem(item, list.size());
+    }
+
     public void addItem(T item, int position) {
+        if (comparator != null) {
+            position = SortedLists.insertionPoint(list, item, comparator);
+        }
         list.add(position, item);
-        notifyItemInserted(position);
+        positionIndex.onInserted(list, position, 1);
+        updates().onInserted(position, 1);
     }
 
+    /**
+     * Replaces the item at the position. While a comparator is set, the item is moved to its sorted position.
+     */
     public void updateItem(T item, int position) {
+        updateItem(item, position, null);
+    }
+
+    /**
+     * The payload is passed to onBindPartial, so only the views it refers to are rebound.
+     */
+    public void updateItem(T item, int position, Object payload) {
         list.set(position, item);
-        notifyItemChanged(position);
+        positionIndex.onChanged(position, item);
+        if (comparator != null && !SortedLists.isInOrder(list, position, comparator)) {
+            list.remove(position);
+            positionIndex.onRemoved(position);
+            int newPosition = SortedLists.insertionPoint(list, item, comparator);
+            list.add(newPosition, item);
+            positionIndex.onInserted(list, newPosition, 1);
+            updates().onMoved(position, newPosition);
+            position = newPosition;
+        }
+        updates().onChanged(position, 1, payload);
     }
 
-    public class ItemViewHolder extends RecyclerView.ViewHolder {
-        private final D dataBinding;
+    /**
+     * Replaces the item with the same key, or the equal item if no ItemKeyExtractor is set.
+     */
+    public void updateItem(T item) {
+        checkNotWindowed("updateItem(T)");
+        int position = positionIndex.indexOf(list, item);
+        if (position != -1) {
+            updateItem(item, position);
+        }
+    }
+
+    public class ItemViewHolder extends BindingViewHolder<D> {
 
         private ItemViewHolder(D binding) {
-            super(binding.getRoot());
-            dataBinding = binding;
+            super(binding);
+        }
+
+        @Override
+        void onItemClick(int position) {
+            GenericAdapter.this.onItemClick(list.get(position), position);
         }
     }
 }
\ No newline at end of file
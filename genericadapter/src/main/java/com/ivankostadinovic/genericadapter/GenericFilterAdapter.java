@@ -1,12 +1,10 @@
 package com.ivankostadinovic.genericadapter;
 
-import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import android.widget.EditText;
 
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
-import androidx.databinding.DataBindingUtil;
 import androidx.databinding.ViewDataBinding;
 import androidx.databinding.library.baseAdapters.BR;
 import androidx.recyclerview.widget.RecyclerView;
@@ -15,25 +13,69 @@ import com.jakewharton.rxbinding4.widget.RxTextView;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.disposables.Disposable;
-import kotlin.collections.CollectionsKt;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 
 /**
  * @author manoj.bhadane manojbhadane777@gmail.com
  * edited by ivankostadinovic1994@outlook.com
  */
 
-public abstract class GenericFilterAdapter<T, D extends ViewDataBinding> extends RecyclerView.Adapter<GenericFilterAdapter<T, D>.ItemViewHolder> {
+public abstract class GenericFilterAdapter<T, D extends ViewDataBinding> extends RecyclerView.Adapter<GenericFilterAdapter<T, D>.ItemViewHolder>
+    implements AdapterDelegate.Host<T, D> {
 
-    private List<T> list = new ArrayList<>();
-    private List<T> filteredList = new ArrayList<>();
+    private List<T> list = new ChunkedList<>();
+    private List<T> filteredList;
     private final int layoutResId;
+    private final AdapterDelegate<T, D> delegate = new AdapterDelegate<>(this, () -> list.size());
+    private final Pagination pagination = delegate.getPagination();
     private Disposable searchDisposable;
     private final EditText searchView;
+    private final FilterEngine<T> filterEngine = new FilterEngine<>(this::filter);
+    private final Subject<String> refilterRequests = PublishSubject.create();
+    private Scheduler filterScheduler;
+    private long filterDebounceMillis = DEFAULT_FILTER_DEBOUNCE_MILLIS;
+    private String appliedQuery = "";
+    private List<T> textFilterResult;
+    private int listVersion;
+    private int staleResults;
+    private final UpdateCallback adapterUpdates = new AdapterUpdateCallback(this);
+    private final UpdateBatch batch = new UpdateBatch();
+    private int batchDepth;
+    private int maxFilterChangeRanges = DEFAULT_MAX_FILTER_CHANGE_RANGES;
+    private final PositionIndex<T> positionIndex = new PositionIndex<>();
+    private final PositionIndex<T> filteredPositionIndex = new PositionIndex<>();
+    private final FilterRankIndex filterRankIndex = new FilterRankIndex();
+    private Comparator<T> comparator;
+    private ItemScorer<T> itemScorer;
+    private int rankedResultLimit;
+    private int rankedResultPages = 1;
+    private Ranking<T> ranking;
+    private boolean rerankScheduled;
+    private boolean showingSnapshot;
+    private static final int MAX_STALE_RESULTS = 3;
     public static final int DEFAULT_PAGINATION_OFFSET = 3;
+    public static final int DEFAULT_MAX_PENDING_CHANGES = 1000;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    public static final long DEFAULT_METRICS_REPORT_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_FILTER_DEBOUNCE_MILLIS = 150;
+    public static final int DEFAULT_MAX_FILTER_CHANGE_RANGES = 64;
+    public static final int DEFAULT_PARALLEL_FILTER_THRESHOLD = 50000;
 
     public int paginationOffset = DEFAULT_PAGINATION_OFFSET;
 
@@ -46,28 +88,419 @@ public abstract class GenericFilterAdapter<T, D extends ViewDataBinding> extends
     public void onCreateHolder(D dataBinding) {
     }
 
+    /**
+     * See {@link GenericAdapter#onBindPartial(Object, List, ViewDataBinding)}.
+     */
+    public void onBindPartial(T model, List<Object> payloads, D dataBinding) {
+        dataBinding.setVariable(BR.data, model);
+    }
+
     public void loadMoreItems(int loadedCount) {
 
     }
 
+    /**
+     * Called when one of the first rows is shown, if loading previous pages is enabled on getPagination.
+     */
+    public void loadPreviousItems(int loadedCount) {
+
+    }
+
+    /**
+     * See {@link GenericAdapter#onPrefetch(Object)}.
+     */
+    public void onPrefetch(T item) {
+
+    }
+
+    /**
+     * See {@link GenericAdapter#onCancelPrefetch(Object)}.
+     */
+    public void onCancelPrefetch(T item) {
+
+    }
+
+    public void setPrefetchDistance(int distance) {
+        setPrefetchDistance(distance, PrefetchWindow.defaultScheduler());
+    }
+
+    /**
+     * See {@link GenericAdapter#setPrefetchDistance(int, Scheduler)}.
+     */
+    public void setPrefetchDistance(int distance, Scheduler scheduler) {
+        delegate.setPrefetchDistance(distance, scheduler);
+    }
+
+    /**
+     * Returns the pagination of the adapter, to report the state of requested pages
+     * and to configure prefetching, retries and loading in both directions.
+     */
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setMetricsListener(MetricsListener listener) {
+        setMetricsListener(listener, DEFAULT_METRICS_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * See {@link GenericAdapter#setMetricsListener(MetricsListener, long)}.
+     */
+    public void setMetricsListener(MetricsListener listener, long reportIntervalMillis) {
+        delegate.setMetricsListener(listener, reportIntervalMillis);
+    }
+
     public GenericFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView) {
-        this.list.addAll(arrayList);
-        this.filteredList.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
+        this.filteredList = ChunkedList.copyOf(list);
         this.layoutResId = layoutResId;
         this.searchView = searchView;
     }
 
     public GenericFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, int paginationOffset) {
-        this.list.addAll(arrayList);
-        this.filteredList.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
+        this.filteredList = ChunkedList.copyOf(list);
         this.layoutResId = layoutResId;
         this.searchView = searchView;
         this.paginationOffset = paginationOffset;
     }
 
-    private void filterList(CharSequence text) {
-        filteredList = CollectionsKt.filter(list, item -> filter(item, text.toString()));
-        notifyDataSetChanged();
+    /**
+     * Enables stable ids, see {@link GenericAdapter#GenericAdapter(List, int, ItemIdExtractor)}.
+     */
+    public GenericFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, searchView, DEFAULT_PAGINATION_OFFSET, idExtractor);
+    }
+
+    public GenericFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, int paginationOffset, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, searchView, paginationOffset);
+        delegate.setIdExtractor(idExtractor);
+    }
+
+    /**
+     * Moves filtering off the main thread. Text changes are debounced by debounceMillis,
+     * a newer query cancels the one that is still being computed and the result is
+     * published on the main thread. The filter method is then called on the given scheduler,
+     * so it must not touch any views. Call this before the adapter is attached to a RecyclerView.
+     */
+    public void setFilterScheduler(Scheduler scheduler, long debounceMillis) {
+        this.filterScheduler = scheduler;
+        this.filterDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Reuses earlier results while typing. A query that extends a previous one ("ra" to "rad")
+     * is only checked against the results of the previous one, and the results of the last
+     * cacheSize queries are kept, so going back to an earlier query is instant.
+     * Only enable this when an item that matches a query also matches every prefix of that query,
+     * as contains or startsWith checks do. Pass 0 to turn it off.
+     */
+    public void setIncrementalFiltering(int cacheSize) {
+        filterEngine.setCacheSize(cacheSize);
+    }
+
+    /**
+     * Filters lists with at least threshold items on all cores. The list is split into chunks that are
+     * filtered on the computation scheduler and the filtering thread at once, and the results keep the
+     * list order. A newer query stops the remaining chunks. The filter method is then called from several
+     * threads at the same time, so it must not modify shared state.
+     * DEFAULT_PARALLEL_FILTER_THRESHOLD is a good start, pass 0 to turn it off.
+     */
+    public void setParallelFiltering(int threshold) {
+        filterEngine.setParallelFiltering(threshold, Schedulers.computation());
+    }
+
+    /**
+     * Searches a trigram index over the keys returned by keyExtractor instead of calling filter
+     * for every item. An item matches when its key contains the query, ignoring case and accents.
+     * The index is kept up to date by the adapter methods. Large lists are indexed on a background
+     * thread, and until that is done the keys are scanned instead.
+     * Call this before the adapter is attached to a RecyclerView, pass null to turn it off.
+     */
+    public void setSearchKeyExtractor(SearchKeyExtractor<T> keyExtractor) {
+        filterEngine.setSearchKeyExtractor(keyExtractor);
+        indexItems();
+    }
+
+    private void indexItems() {
+        Scheduler workScheduler = filterScheduler != null ? filterScheduler : Schedulers.computation();
+        filterEngine.indexItems(list, workScheduler, AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * A new filter result is applied with one notifyItemRangeRemoved/notifyItemRangeInserted call
+     * per changed range, so unchanged rows keep their view holders and animate into place.
+     * If more than maxRanges ranges changed, the adapter falls back to notifyDataSetChanged.
+     */
+    public void setMaxFilterChangeRanges(int maxRanges) {
+        this.maxFilterChangeRanges = maxRanges;
+    }
+
+    /**
+     * Shows the items that the scorer matched, best first, instead of filtering them while a query is entered.
+     * Every item is scored once and only the best limit items are kept, showMoreResults shows the next limit.
+     * The ranges the scorer matched are kept, so onBindData can highlight them with getMatchRanges.
+     * Facets still apply. Ranked results are shown with notifyDataSetChanged, and are ranked again
+     * after the items change. Pass null to filter again.
+     */
+    public void setItemScorer(ItemScorer<T> scorer, int limit) {
+        this.itemScorer = scorer;
+        this.rankedResultLimit = limit;
+        rankedResultPages = 1;
+        refilter();
+    }
+
+    /**
+     * Shows the next limit ranked results, returns false if there are none.
+     */
+    public boolean showMoreResults() {
+        if (!hasMoreResults()) {
+            return false;
+        }
+        rankedResultPages++;
+        refilter();
+        return true;
+    }
+
+    public boolean hasMoreResults() {
+        return ranking != null && !ranking.isComplete();
+    }
+
+    /**
+     * Returns the ranges of the item's search key that matched the query, or null if the results are not ranked.
+     */
+    public MatchRanges getMatchRanges(T item) {
+        return ranking != null ? ranking.getMatchRanges(item) : null;
+    }
+
+    private boolean isRanking(String text) {
+        return itemScorer != null && !text.isEmpty();
+    }
+
+    /**
+     * Shows only the items that also match the facet, on top of the text filter. Facets of the same group
+     * are combined with OR and different groups with AND, a facet with the name of an existing one replaces it.
+     * The matches of every facet are cached as a bit set over the items, so changing a facet only checks
+     * that facet and the text filter does not run again.
+     */
+    public void setFacet(String name, String group, Facet<T> facet) {
+        filterEngine.setFacet(name, group, facet, list);
+        applyFacets();
+    }
+
+    /**
+     * Sets a facet that forms its own group, so it is combined with the other facets with AND.
+     */
+    public void setFacet(String name, Facet<T> facet) {
+        setFacet(name, name, facet);
+    }
+
+    public void removeFacet(String name) {
+        filterEngine.removeFacet(name);
+        applyFacets();
+    }
+
+    private void applyFacets() {
+        if (textFilterResult != null) {
+            applyFilterResult(filterEngine.retainFacetMatches(list, textFilterResult));
+        } else {
+            refilter();
+        }
+    }
+
+    private boolean isFilteringInBackground() {
+        return filterScheduler != null && searchDisposable != null && !searchDisposable.isDisposed();
+    }
+
+    private void filterList(String text) {
+        if (showingSnapshot && text.equals(appliedQuery)) {
+            //the restored snapshot already shows the result of the query
+            return;
+        }
+        showingSnapshot = false;
+        if (!text.equals(appliedQuery)) {
+            rankedResultPages = 1;
+        }
+        appliedQuery = text;
+        MetricsRecorder metrics = delegate.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (isRanking(text)) {
+            Ranking<T> result = filterEngine.rank(filterEngine.retainFacetMatches(list, list), text, itemScorer, rankedResultLimit * rankedResultPages);
+            if (metrics != null) {
+                metrics.recordFilter(start, result.getItems().size());
+            }
+            applyRanking(result);
+            return;
+        }
+        textFilterResult = filterEngine.filterItems(list, text);
+        if (metrics != null) {
+            metrics.recordFilter(start, textFilterResult.size());
+        }
+        applyFilterResult(filterEngine.retainFacetMatches(list, textFilterResult));
+    }
+
+    private void refilter() {
+        showingSnapshot = false;
+        if (isFilteringInBackground()) {
+            //the current results stay visible until the new ones are computed
+            refilterRequests.onNext(searchView.getText().toString());
+        } else {
+            filterList(searchView.getText().toString());
+        }
+    }
+
+    private void applyFilterResult(List<T> result) {
+        List<T> oldFilteredList = filteredList;
+        filteredList = result;
+        filteredPositionIndex.invalidate();
+        filterRankIndex.invalidate();
+        if (ranking != null) {
+            //ranked results are not in list order, so they can't be diffed against the filter result
+            ranking = null;
+            refreshAll();
+            return;
+        }
+        MetricsRecorder metrics = delegate.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (!FilterDiff.dispatchUpdates(list, oldFilteredList, result, maxFilterChangeRanges, updates())) {
+            refreshAll();
+        }
+        if (metrics != null) {
+            metrics.recordDiff(start);
+        }
+    }
+
+    private void applyRanking(Ranking<T> result) {
+        ranking = result;
+        textFilterResult = null;
+        filteredList = ChunkedList.copyOf(result.getItems());
+        filteredPositionIndex.invalidate();
+        filterRankIndex.invalidate();
+        refreshAll();
+    }
+
+    private void onListChanged() {
+        listVersion++;
+        textFilterResult = null;
+        filterEngine.invalidateCache();
+        if (ranking != null) {
+            scheduleRerank();
+        }
+    }
+
+    /**
+     * Changed items are filtered into the ranked results right away, and all of them are ranked again once,
+     * after the current batch of changes.
+     */
+    private void scheduleRerank() {
+        if (!rerankScheduled) {
+            rerankScheduled = true;
+            AndroidSchedulers.mainThread().scheduleDirect(() -> {
+                rerankScheduled = false;
+                if (ranking != null) {
+                    refilter();
+                }
+            });
+        }
+    }
+
+    private Observable<?> search(String text) {
+        if (showingSnapshot && text.equals(appliedQuery)) {
+            return Observable.empty();
+        }
+        showingSnapshot = false;
+        if (!text.equals(appliedQuery)) {
+            rankedResultPages = 1;
+        }
+        return isRanking(text) ? rankInBackground(text) : filterInBackground(text);
+    }
+
+    private Observable<Ranking<T>> rankInBackground(String text) {
+        int version = listVersion;
+        int limit = rankedResultLimit * rankedResultPages;
+        ItemScorer<T> scorer = itemScorer;
+        List<T> snapshot = SnapshotList.snapshotOf(filterEngine.retainFacetMatches(list, list));
+        MetricsRecorder metrics = delegate.getMetrics();
+        return Observable.<Ranking<T>>create(emitter -> {
+            long start = metrics != null ? System.nanoTime() : 0;
+            Ranking<T> result = filterEngine.rank(snapshot, text, scorer, limit, emitter::isDisposed);
+            if (result != null) {
+                if (metrics != null) {
+                    metrics.recordFilter(start, result.getItems().size());
+                }
+                emitter.onNext(result);
+            }
+            emitter.onComplete();
+        })
+            .subscribeOn(filterScheduler)
+            .observeOn(AndroidSchedulers.mainThread())
+            .doOnNext(result -> publishRanking(text, version, result));
+    }
+
+    private void publishRanking(String text, int version, Ranking<T> result) {
+        if (version != listVersion) {
+            if (++staleResults <= MAX_STALE_RESULTS) {
+                postRefilter();
+                return;
+            }
+            //the items keep changing faster than they are ranked, rank the current ones here instead
+            result = filterEngine.rank(filterEngine.retainFacetMatches(list, list), text, itemScorer, rankedResultLimit * rankedResultPages);
+        }
+        staleResults = 0;
+        appliedQuery = text;
+        applyRanking(result);
+    }
+
+    private Observable<List<T>> filterInBackground(String text) {
+        int version = listVersion;
+        List<T> immediateResult = filterEngine.isIndexReady()
+            ? filterEngine.filterItems(list, text)
+            : filterEngine.getCachedResult(text);
+        if (immediateResult != null) {
+            return Observable.just(immediateResult)
+                .doOnNext(result -> publishFilterResult(text, version, result));
+        }
+        List<T> snapshot = SnapshotList.snapshotOf(filterEngine.getCandidates(list, text));
+        MetricsRecorder metrics = delegate.getMetrics();
+        return Observable.<List<T>>create(emitter -> {
+            long start = metrics != null ? System.nanoTime() : 0;
+            List<T> result = filterEngine.filter(snapshot, text, emitter::isDisposed);
+            if (result != null) {
+                if (metrics != null) {
+                    metrics.recordFilter(start, result.size());
+                }
+                emitter.onNext(result);
+            }
+            emitter.onComplete();
+        })
+            .subscribeOn(filterScheduler)
+            .observeOn(AndroidSchedulers.mainThread())
+            .doOnNext(result -> publishFilterResult(text, version, result));
+    }
+
+    private void publishFilterResult(String text, int version, List<T> result) {
+        if (version != listVersion) {
+            //the items changed while the filter was running, so the result is already stale
+            if (++staleResults <= MAX_STALE_RESULTS) {
+                postRefilter();
+                return;
+            }
+            //the items keep changing faster than they are filtered, filter the current ones here instead
+            result = filterEngine.filterItems(list, text);
+        }
+        staleResults = 0;
+        appliedQuery = text;
+        filterEngine.cacheResult(text, result);
+        textFilterResult = result;
+        applyFilterResult(filterEngine.retainFacetMatches(list, result));
+    }
+
+    /**
+     * Filters the current items again once the main thread is done with the current work, with the current query,
+     * so a newer query that was typed in the meantime is not replaced by the stale one.
+     */
+    private void postRefilter() {
+        AndroidSchedulers.mainThread().scheduleDirect(() -> refilterRequests.onNext(searchView.getText().toString()));
     }
 
     @Override
@@ -75,35 +508,106 @@ public abstract class GenericFilterAdapter<T, D extends ViewDataBinding> extends
         if (searchDisposable != null) {
             searchDisposable.dispose();
         }
+        delegate.onDetachedFromRecyclerView(recyclerView);
         super.onDetachedFromRecyclerView(recyclerView);
     }
 
     @Override
     public void onAttachedToRecyclerView(@NonNull @NotNull RecyclerView recyclerView) {
-        searchDisposable = RxTextView
+        Observable<String> textChanges = RxTextView
             .textChanges(searchView)
-            .subscribe(this::filterList);
+            .map(CharSequence::toString);
+        if (filterScheduler == null) {
+            searchDisposable = textChanges.subscribe(this::filterList);
+        } else {
+            searchDisposable = Observable
+                .merge(textChanges.debounce(filterDebounceMillis, TimeUnit.MILLISECONDS, AndroidSchedulers.mainThread()), refilterRequests)
+                .switchMap(this::search)
+                .subscribe();
+        }
+        delegate.onAttachedToRecyclerView(recyclerView);
         super.onAttachedToRecyclerView(recyclerView);
     }
 
+    /**
+     * See {@link GenericAdapter#setViewType(Class, int)}.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId) {
+        delegate.setViewType(itemClass, layoutResId);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewType(Class, int, int)}.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setViewType(itemClass, layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewTypeResolver(ViewTypeResolver)}.
+     */
+    public void setViewTypeResolver(ViewTypeResolver<T> resolver) {
+        delegate.setViewTypeResolver(resolver);
+    }
+
+    /**
+     * See {@link GenericAdapter#setMaxRecycledViews(int, int)}.
+     */
+    public void setMaxRecycledViews(@LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setMaxRecycledViews(layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * See {@link GenericAdapter#setWarmUpCount(int, int)}.
+     */
+    public void setWarmUpCount(@LayoutRes int layoutResId, int count) {
+        delegate.setWarmUpCount(layoutResId, count);
+    }
+
+    /**
+     * See {@link GenericAdapter#getWarmCreateCount()}.
+     */
+    public int getWarmCreateCount() {
+        return delegate.getWarmCreateCount();
+    }
+
+    /**
+     * See {@link GenericAdapter#getColdCreateCount()}.
+     */
+    public int getColdCreateCount() {
+        return delegate.getColdCreateCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return delegate.getItemViewType(filteredList.get(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return delegate.getItemId(filteredList.get(position));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ItemViewHolder holder) {
+        delegate.onViewRecycled(holder);
+        super.onViewRecycled(holder);
+    }
+
     @NonNull
     @Override
     public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        D dataBinding = DataBindingUtil.inflate(LayoutInflater.from(parent.getContext()), layoutResId, parent, false);
-        onCreateHolder(dataBinding);
-        return new ItemViewHolder(dataBinding);
+        return new ItemViewHolder(delegate.createBinding(parent, viewType, layoutResId));
     }
 
     @Override
     public void onBindViewHolder(@NonNull ItemViewHolder holder, final int position) {
-        final T item = filteredList.get(position);
-        holder.dataBinding.setVariable(BR.data, item);
-        onBindData(item, position, holder.dataBinding);
-        holder.dataBinding.executePendingBindings();
-        holder.dataBinding.getRoot().setOnClickListener(view -> onItemClick(item, position));
-        if (position == getItemCount() - paginationOffset) {
-            loadMoreItems(list.size());
-        }
+        delegate.bind(holder, filteredList.get(position), position, paginationOffset);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        delegate.bindPartial(holder, filteredList.get(position), position, paginationOffset, payloads);
     }
 
     @Override
@@ -111,60 +615,383 @@ public abstract class GenericFilterAdapter<T, D extends ViewDataBinding> extends
         return filteredList.size();
     }
 
+    /**
+     * Matches items by the key returned by keyExtractor, for example an id, instead of equals.
+     * The positions of the keys are indexed in both the filtered and the unfiltered list,
+     * so looking up, updating and removing items by key takes logarithmic time. Keys have to be unique.
+     */
+    public void setItemKeyExtractor(ItemKeyExtractor<T> keyExtractor) {
+        positionIndex.setKeyExtractor(keyExtractor);
+        filteredPositionIndex.setKeyExtractor(keyExtractor);
+    }
+
+    /**
+     * Starts recording changes instead of notifying them one by one. Batches can be nested,
+     * the outermost commitBatch merges adjacent and overlapping changes and dispatches them at once.
+     * The filter is only checked for the items that were added or updated.
+     * Call commitBatch in a finally block, a batch that is never committed keeps every later change recorded.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("commitBatch() called without beginBatch()");
+        }
+        if (--batchDepth == 0 && !batch.dispatchTo(adapterUpdates)) {
+            notifyDataSetChanged();
+        }
+    }
+
+    private UpdateCallback updates() {
+        return batchDepth > 0 ? batch : adapterUpdates;
+    }
+
+    private void refreshAll() {
+        if (batchDepth > 0) {
+            batch.refreshAll();
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Keeps the items sorted by the comparator. The current items are sorted once, after that addItem
+     * and updateItem place items with a binary search, and addItems merges the new items in linear time,
+     * in both the filtered and the unfiltered list. Pass null to turn it off.
+     * Ranked results stay in the order of their scores, only the unfiltered list is sorted then.
+     */
+    public void setComparator(Comparator<T> comparator) {
+        this.comparator = comparator;
+        if (comparator != null) {
+            Collections.sort(list, comparator);
+            positionIndex.invalidate();
+            filterRankIndex.invalidate();
+            onListChanged();
+            indexItems();
+            if (ranking == null) {
+                Collections.sort(filteredList, comparator);
+                filteredPositionIndex.invalidate();
+                refreshAll();
+            }
+        }
+    }
+
+    /**
+     * See {@link GenericAdapter#bindItems(Flowable)}.
+     */
+    public Disposable bindItems(Flowable<? extends List<T>> snapshots) {
+        return delegate.bindItems(snapshots);
+    }
+
+    public Disposable bindItems(Observable<? extends List<T>> snapshots) {
+        return bindItems(snapshots.toFlowable(BackpressureStrategy.LATEST));
+    }
+
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes) {
+        return bindItemChanges(changes, DEFAULT_MAX_PENDING_CHANGES);
+    }
+
+    /**
+     * See {@link GenericAdapter#bindItemChanges(Flowable, int)}.
+     */
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes, int maxPendingChanges) {
+        return delegate.bindItemChanges(changes, maxPendingChanges, positionIndex.getKeyExtractor());
+    }
+
     public void setItems(List<T> arrayList) {
         if (list != arrayList) {
-            list = new ArrayList<>();
-            list.addAll(arrayList);
-            filteredList = new ArrayList<>();
-            filteredList.addAll(arrayList);
-            filterList(searchView.getText().toString());
+            pagination.reset();
+            list = ChunkedList.copyOf(arrayList);
+            if (comparator != null) {
+                Collections.sort(list, comparator);
+            }
+            positionIndex.invalidate();
+            filterRankIndex.invalidate();
+            onListChanged();
+            indexItems();
+            refilter();
         }
     }
 
+    /**
+     * Writes the items, the query and the filtered items to file, so the next start can show them
+     * with restoreSnapshot before fresh items are loaded. Everything is captured when this is called and written
+     * when the returned Completable is subscribed, subscribe it on a background scheduler.
+     */
+    public Completable saveSnapshot(File file, ItemSerializer<T> serializer) {
+        List<T> items = SnapshotList.snapshotOf(list);
+        List<T> filteredItems = SnapshotList.snapshotOf(filteredList);
+        String query = appliedQuery;
+        return Completable.fromAction(() -> AdapterSnapshot.write(file, items, query, filteredItems, serializer));
+    }
+
+    /**
+     * Shows the items and the filter result of a snapshot written by saveSnapshot, and puts its query into
+     * the search view without filtering again. The file is mapped into memory and an item is only read when it is
+     * first accessed, so the first frame does not wait for the whole list. The items can be changed as usual,
+     * the first change reads all of them, and facets and the search index are built from the restored items.
+     * Ranked results are restored in their order, but without match ranges. Returns false if there is no snapshot yet.
+     */
+    public boolean restoreSnapshot(File file, ItemSerializer<T> serializer) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        AdapterSnapshot<T> snapshot = AdapterSnapshot.read(file, serializer);
+        pagination.reset();
+        ranking = null;
+        list = snapshot.getItems();
+        positionIndex.invalidate();
+        filterRankIndex.invalidate();
+        onListChanged();
+        indexItems();
+        if (snapshot.getFilteredItems() == null) {
+            refilter();
+            return true;
+        }
+        appliedQuery = snapshot.getQuery();
+        filteredList = snapshot.getFilteredItems();
+        filteredPositionIndex.invalidate();
+        showingSnapshot = true;
+        searchView.setText(appliedQuery);
+        refreshAll();
+        return true;
+    }
+
     public void clearItems() {
+        pagination.reset();
         list.clear();
         filteredList.clear();
-        notifyDataSetChanged();
+        positionIndex.invalidate();
+        filteredPositionIndex.invalidate();
+        filterRankIndex.invalidate();
+        onListChanged();
+        indexItems();
+        refreshAll();
     }
 
     public T getItem(int position) {
         return filteredList.get(position);
     }
 
+    /**
+     * Returns the item with the given key, even if it is filtered out, or null. Requires an ItemKeyExtractor.
+     */
+    public T getItemByKey(Object key) {
+        int unfilteredListPosition = positionIndex.indexOfKey(list, key);
+        return unfilteredListPosition != -1 ? list.get(unfilteredListPosition) : null;
+    }
+
+    /**
+     * Returns the adapter position of the item with the given key, or -1 if it is filtered out
+     * or not in the list. Requires an ItemKeyExtractor.
+     */
+    public int getItemPosition(Object key) {
+        return filteredPositionIndex.indexOfKey(filteredList, key);
+    }
+
     public void removeItem(int position) {
-        T itemToRemove = filteredList.get(position);
-        filteredList.remove(position);
-        list.remove(itemToRemove);
-        notifyItemRemoved(position);
+        int unfilteredListPosition = positionIndex.indexOf(list, filteredList.get(position));
+        if (unfilteredListPosition != -1) {
+            removeUnfilteredItem(unfilteredListPosition);
+        }
+        removeFilteredItem(position);
+        onListChanged();
     }
 
     public void removeItem(T item) {
-        int position = list.indexOf(item);
-        filteredList.remove(item);
-        list.remove(item);
-        notifyItemRemoved(position);
+        int unfilteredListPosition = positionIndex.indexOf(list, item);
+        if (unfilteredListPosition != -1) {
+            removeUnfilteredItem(unfilteredListPosition);
+        }
+        int position = filteredPositionIndex.indexOf(filteredList, item);
+        if (position != -1) {
+            removeFilteredItem(position);
+        }
+        onListChanged();
+    }
+
+    public void removeItemByKey(Object key) {
+        int unfilteredListPosition = positionIndex.indexOfKey(list, key);
+        if (unfilteredListPosition != -1) {
+            removeUnfilteredItem(unfilteredListPosition);
+        }
+        int position = getItemPosition(key);
+        if (position != -1) {
+            removeFilteredItem(position);
+        }
+        onListChanged();
+    }
+
+    private void removeUnfilteredItem(int unfilteredListPosition) {
+        list.remove(unfilteredListPosition);
+        positionIndex.onRemoved(unfilteredListPosition);
+        filterRankIndex.onRemoved(unfilteredListPosition);
+        filterEngine.onItemRemoved(unfilteredListPosition);
+    }
+
+    private void removeFilteredItem(int position) {
+        filteredList.remove(position);
+        filteredPositionIndex.onRemoved(position);
+        updates().onRemoved(position, 1);
+    }
+
+    /**
+     * Adds the item at its sorted position, or at the end if no comparator is set.
+     * It is only shown if it matches the current query.
+     */
+    public void addItem(T item) {
+        int unfilteredListPosition = comparator != null ? SortedLists.insertionPoint(list, item, comparator) : list.size();
+        list.add(unfilteredListPosition, item);
+        positionIndex.onInserted(list, unfilteredListPosition, 1);
+        filterRankIndex.onInserted(unfilteredListPosition, false);
+        filterEngine.onItemsInserted(unfilteredListPosition, Collections.singletonList(item));
+        if (filterEngine.matches(item, appliedQuery)) {
+            insertFilteredItem(item, unfilteredListPosition);
+        }
+        onListChanged();
     }
 
     public void addItems(List<T> items) {
+        delegate.onItemsAdded(items.size());
+        if (comparator != null) {
+            addSortedItems(items);
+            return;
+        }
+        int currentSize = list.size();
         list.addAll(items);
-        List<T> newFilteredItems = CollectionsKt.filter(items, item -> filter(item, searchView.getText().toString()));
+        positionIndex.onInserted(list, currentSize, items.size());
+        onListChanged();
+        filterEngine.onItemsInserted(currentSize, items);
+        List<T> newFilteredItems = filterEngine.filterWithFacets(items, appliedQuery);
+        int currentFilteredSize = filteredList.size();
         filteredList.addAll(newFilteredItems);
-        notifyItemRangeInserted(filteredList.size(), newFilteredItems.size());
+        filteredPositionIndex.onInserted(filteredList, currentFilteredSize, newFilteredItems.size());
+        filterRankIndex.onAppended(items, newFilteredItems);
+        updates().onInserted(currentFilteredSize, newFilteredItems.size());
     }
 
+    private void addSortedItems(List<T> items) {
+        list = SortedLists.merge(list, items, comparator, filterEngine::onItemsInserted);
+        positionIndex.invalidate();
+        filterRankIndex.invalidate();
+        onListChanged();
+        if (ranking != null) {
+            //the rerank scheduled by onListChanged places the new items by their scores
+            return;
+        }
+        List<T> newFilteredItems = filterEngine.filterWithFacets(items, appliedQuery);
+        filteredList = SortedLists.merge(filteredList, newFilteredItems, comparator,
+            (position, insertedItems) -> updates().onInserted(position, insertedItems.size()));
+        filteredPositionIndex.invalidate();
+    }
+
+    /**
+     * Replaces the item at the position. If the new item does not match the current query, it is filtered out.
+     * While a comparator is set, the item is moved to its sorted position.
+     */
     public void updateItem(T item, int position) {
-        int unfilteredListPosition = list.indexOf(filteredList.get(position));
-        list.set(unfilteredListPosition, item);
+        updateItem(item, position, null);
+    }
+
+    /**
+     * The payload is passed to onBindPartial, so only the views it refers to are rebound.
+     */
+    public void updateItem(T item, int position, Object payload) {
+        int unfilteredListPosition = positionIndex.indexOf(list, filteredList.get(position));
+        if (unfilteredListPosition != -1) {
+            unfilteredListPosition = updateUnfilteredItem(item, unfilteredListPosition);
+        }
+        if (filterEngine.matches(item, appliedQuery)) {
+            updateFilteredItem(item, position, payload);
+        } else {
+            if (unfilteredListPosition != -1) {
+                filterRankIndex.setShown(unfilteredListPosition, false);
+            }
+            removeFilteredItem(position);
+        }
+        onListChanged();
+    }
+
+    /**
+     * Replaces the item with the same key, or the equal item if no ItemKeyExtractor is set.
+     * The item is filtered in or out depending on whether it matches the current query.
+     */
+    public void updateItem(T item) {
+        int unfilteredListPosition = positionIndex.indexOf(list, item);
+        if (unfilteredListPosition == -1) {
+            return;
+        }
+        unfilteredListPosition = updateUnfilteredItem(item, unfilteredListPosition);
+        int position = filteredPositionIndex.indexOf(filteredList, item);
+        boolean matches = filterEngine.matches(item, appliedQuery);
+        if (position != -1 && matches) {
+            updateFilteredItem(item, position, null);
+        } else if (position != -1) {
+            filterRankIndex.setShown(unfilteredListPosition, false);
+            removeFilteredItem(position);
+        } else if (matches) {
+            insertFilteredItem(item, unfilteredListPosition);
+        }
+        onListChanged();
+    }
+
+    private void insertFilteredItem(T item, int unfilteredListPosition) {
+        int position = comparator != null && ranking == null
+            ? SortedLists.insertionPoint(filteredList, item, comparator)
+            : filterRankIndex.positionInResult(list, filteredList, unfilteredListPosition);
+        filteredList.add(position, item);
+        filteredPositionIndex.onInserted(filteredList, position, 1);
+        filterRankIndex.setShown(unfilteredListPosition, true);
+        updates().onInserted(position, 1);
+    }
+
+    private void updateFilteredItem(T item, int position, Object payload) {
         filteredList.set(position, item);
-        notifyItemChanged(position);
+        filteredPositionIndex.onChanged(position, item);
+        //ranked results are not in comparator order, the rerank moves the item
+        if (comparator != null && ranking == null && !SortedLists.isInOrder(filteredList, position, comparator)) {
+            filteredList.remove(position);
+            filteredPositionIndex.onRemoved(position);
+            int newPosition = SortedLists.insertionPoint(filteredList, item, comparator);
+            filteredList.add(newPosition, item);
+            filteredPositionIndex.onInserted(filteredList, newPosition, 1);
+            updates().onMoved(position, newPosition);
+            position = newPosition;
+        }
+        updates().onChanged(position, 1, payload);
     }
 
-    public class ItemViewHolder extends RecyclerView.ViewHolder {
-        private final D dataBinding;
+    /**
+     * Returns the position of the item in the unfiltered list, which changes if it had to be moved
+     * to stay sorted.
+     */
+    private int updateUnfilteredItem(T item, int unfilteredListPosition) {
+        list.set(unfilteredListPosition, item);
+        positionIndex.onChanged(unfilteredListPosition, item);
+        filterEngine.onItemChanged(unfilteredListPosition, item);
+        if (comparator != null && !SortedLists.isInOrder(list, unfilteredListPosition, comparator)) {
+            //only unsorted lists look up result positions, so the rank index is not kept for moves
+            filterRankIndex.invalidate();
+            removeUnfilteredItem(unfilteredListPosition);
+            unfilteredListPosition = SortedLists.insertionPoint(list, item, comparator);
+            list.add(unfilteredListPosition, item);
+            positionIndex.onInserted(list, unfilteredListPosition, 1);
+            filterEngine.onItemsInserted(unfilteredListPosition, Collections.singletonList(item));
+        }
+        return unfilteredListPosition;
+    }
+
+    public class ItemViewHolder extends BindingViewHolder<D> {
 
         private ItemViewHolder(D binding) {
-            super(binding.getRoot());
-            dataBinding = binding;
+            super(binding);
+        }
+
+        @Override
+        void onItemClick(int position) {
+            GenericFilterAdapter.this.onItemClick(filteredList.get(position), position);
         }
     }
 }
\ No newline at end of file
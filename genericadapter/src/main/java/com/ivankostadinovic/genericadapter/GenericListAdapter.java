@@ -1,11 +1,9 @@
 package com.ivankostadinovic.genericadapter;
 
-import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
-import androidx.databinding.DataBindingUtil;
 import androidx.databinding.ViewDataBinding;
 import androidx.databinding.library.baseAdapters.BR;
 import androidx.recyclerview.widget.DiffUtil;
@@ -15,34 +13,66 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+
 /**
  * @author manoj.bhadane manojbhadane777@gmail.com
  * edited by ivankostadinovic1994@outlook.com
  */
 
-public abstract class GenericListAdapter<T, D extends ViewDataBinding> extends ListAdapter<T, GenericListAdapter<T, D>.ItemViewHolder> {
+public abstract class GenericListAdapter<T, D extends ViewDataBinding> extends ListAdapter<T, GenericListAdapter<T, D>.ItemViewHolder>
+    implements AdapterDelegate.Host<T, D> {
 
     public static final int DEFAULT_PAGINATION_OFFSET = 3;
+    public static final int DEFAULT_MAX_PENDING_CHANGES = 1000;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    public static final long DEFAULT_METRICS_REPORT_INTERVAL_MILLIS = 1000;
 
-    public List<T> list = new ArrayList<>();
+    public List<T> list = new ChunkedList<>();
     private final int layoutResId;
+    private final AdapterDelegate<T, D> delegate = new AdapterDelegate<>(this, () -> list.size());
+    private final Pagination pagination = delegate.getPagination();
     private int paginationOffset = DEFAULT_PAGINATION_OFFSET;
+    private final PositionIndex<T> positionIndex = new PositionIndex<>();
+    private final List<Runnable> batchCommitCallbacks = new ArrayList<>();
+    private int batchDepth;
+    private boolean batchOwnsList;
 
     public GenericListAdapter(List<T> arrayList, @LayoutRes int layoutResId, DiffUtil.ItemCallback<T> itemCallback) {
         super(itemCallback);
-        this.list.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
         this.layoutResId = layoutResId;
+        submitList(this.list);
     }
 
     public GenericListAdapter(List<T> arrayList, @LayoutRes int layoutResId, DiffUtil.ItemCallback<T> itemCallback, int paginationOffset) {
         super(itemCallback);
-        this.list = new ArrayList<>();
-        this.list.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
         this.layoutResId = layoutResId;
         this.paginationOffset = paginationOffset;
+        submitList(this.list);
+    }
+
+    /**
+     * Enables stable ids, see {@link GenericAdapter#GenericAdapter(List, int, ItemIdExtractor)}.
+     */
+    public GenericListAdapter(List<T> arrayList, @LayoutRes int layoutResId, DiffUtil.ItemCallback<T> itemCallback, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, itemCallback, DEFAULT_PAGINATION_OFFSET, idExtractor);
+    }
+
+    public GenericListAdapter(List<T> arrayList, @LayoutRes int layoutResId, DiffUtil.ItemCallback<T> itemCallback, int paginationOffset, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, itemCallback, paginationOffset);
+        delegate.setIdExtractor(idExtractor);
     }
 
     public abstract void onBindData(T model, int position, D dataBinding);
@@ -52,86 +82,499 @@ public abstract class GenericListAdapter<T, D extends ViewDataBinding> extends L
     public void onCreateHolder(D dataBinding) {
     }
 
+    /**
+     * See {@link GenericAdapter#onBindPartial(Object, List, ViewDataBinding)}.
+     */
+    public void onBindPartial(T model, List<Object> payloads, D dataBinding) {
+        dataBinding.setVariable(BR.data, model);
+    }
+
     public void loadMoreItems(int loadedCount) {
 
     }
 
+    /**
+     * Called when one of the first rows is shown, if loading previous pages is enabled on getPagination.
+     */
+    public void loadPreviousItems(int loadedCount) {
+
+    }
+
+    /**
+     * See {@link GenericAdapter#onPrefetch(Object)}.
+     */
+    public void onPrefetch(T item) {
+
+    }
+
+    /**
+     * See {@link GenericAdapter#onCancelPrefetch(Object)}.
+     */
+    public void onCancelPrefetch(T item) {
+
+    }
+
+    public void setPrefetchDistance(int distance) {
+        setPrefetchDistance(distance, PrefetchWindow.defaultScheduler());
+    }
+
+    /**
+     * See {@link GenericAdapter#setPrefetchDistance(int, Scheduler)}.
+     */
+    public void setPrefetchDistance(int distance, Scheduler scheduler) {
+        delegate.setPrefetchDistance(distance, scheduler);
+    }
+
+    /**
+     * Returns the pagination of the adapter, to report the state of requested pages
+     * and to configure prefetching, retries and loading in both directions.
+     */
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setMetricsListener(MetricsListener listener) {
+        setMetricsListener(listener, DEFAULT_METRICS_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * See {@link GenericAdapter#setMetricsListener(MetricsListener, long)}.
+     */
+    public void setMetricsListener(MetricsListener listener, long reportIntervalMillis) {
+        delegate.setMetricsListener(listener, reportIntervalMillis);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewType(Class, int)}.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId) {
+        delegate.setViewType(itemClass, layoutResId);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewType(Class, int, int)}.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setViewType(itemClass, layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewTypeResolver(ViewTypeResolver)}.
+     */
+    public void setViewTypeResolver(ViewTypeResolver<T> resolver) {
+        delegate.setViewTypeResolver(resolver);
+    }
+
+    /**
+     * See {@link GenericAdapter#setMaxRecycledViews(int, int)}.
+     */
+    public void setMaxRecycledViews(@LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setMaxRecycledViews(layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * See {@link GenericAdapter#setWarmUpCount(int, int)}.
+     */
+    public void setWarmUpCount(@LayoutRes int layoutResId, int count) {
+        delegate.setWarmUpCount(layoutResId, count);
+    }
+
+    /**
+     * See {@link GenericAdapter#getWarmCreateCount()}.
+     */
+    public int getWarmCreateCount() {
+        return delegate.getWarmCreateCount();
+    }
+
+    /**
+     * See {@link GenericAdapter#getColdCreateCount()}.
+     */
+    public int getColdCreateCount() {
+        return delegate.getColdCreateCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return delegate.getItemViewType(getItem(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return delegate.getItemId(getItem(position));
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        delegate.onAttachedToRecyclerView(recyclerView);
+        super.onAttachedToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        delegate.onDetachedFromRecyclerView(recyclerView);
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void submitList(List<T> items) {
+        submitList(items, null);
+    }
+
+    @Override
+    public void submitList(List<T> items, Runnable commitCallback) {
+        MetricsRecorder metrics = delegate.getMetrics();
+        if (metrics != null) {
+            metrics.onDiffStarted();
+        }
+        super.submitList(items, commitCallback);
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<T> previousList, @NonNull List<T> currentList) {
+        MetricsRecorder metrics = delegate.getMetrics();
+        if (metrics != null) {
+            metrics.onDiffFinished();
+        }
+        super.onCurrentListChanged(previousList, currentList);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ItemViewHolder holder) {
+        delegate.onViewRecycled(holder);
+        super.onViewRecycled(holder);
+    }
+
     @NonNull
     @NotNull
     @Override
     public ItemViewHolder onCreateViewHolder(@NonNull @NotNull ViewGroup parent, int viewType) {
-        D dataBinding = DataBindingUtil.inflate(LayoutInflater.from(parent.getContext()), layoutResId, parent, false);
-        onCreateHolder(dataBinding);
-        return new ItemViewHolder(dataBinding);
+        return new ItemViewHolder(delegate.createBinding(parent, viewType, layoutResId));
     }
 
     @Override
     public void onBindViewHolder(@NonNull @NotNull ItemViewHolder holder, int position) {
-        final T item = list.get(position);
-        holder.dataBinding.setVariable(BR.data, item);
-        onBindData(item, position, holder.dataBinding);
-        holder.dataBinding.executePendingBindings();
-        holder.dataBinding.getRoot().setOnClickListener(view -> onItemClick(item, position));
-        if (position == getItemCount() - paginationOffset) {
-            loadMoreItems(list.size());
-        }
+        delegate.bind(holder, getItem(position), position, paginationOffset);
     }
 
     @Override
-    public int getItemCount() {
-        return list.size();
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        delegate.bindPartial(holder, getItem(position), position, paginationOffset, payloads);
+    }
+
+    /**
+     * Hands a new copy of the items to the ListAdapter, which diffs it against the displayed list
+     * on a background thread. Every change is applied to the last submitted copy, so changes made
+     * before an earlier diff completes are not lost. The commit callback runs once this copy is
+     * displayed, and is skipped if a newer copy is submitted before that.
+     */
+    private void submitItems(List<T> items, Runnable commitCallback) {
+        list = items;
+        if (batchDepth > 0) {
+            if (commitCallback != null) {
+                batchCommitCallbacks.add(commitCallback);
+            }
+        } else {
+            submitList(items, commitCallback);
+        }
+    }
+
+    /**
+     * Returns a copy of the items that can be changed and submitted.
+     * During a batch all changes are made on the same copy, which is submitted by commitBatch.
+     */
+    private List<T> editableItems() {
+        if (batchOwnsList) {
+            return list;
+        }
+        batchOwnsList = batchDepth > 0;
+        return ChunkedList.copyOf(list);
+    }
+
+    /**
+     * Starts recording changes instead of submitting a new list for each of them. Batches can be nested,
+     * the outermost commitBatch submits all the changes as one list, so they are diffed only once.
+     * Call commitBatch in a finally block, a batch that is never committed keeps every later change unsubmitted.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void commitBatch() {
+        commitBatch(null);
+    }
+
+    /**
+     * The commit callback, and the callbacks passed to the adapter methods during the batch,
+     * run once the changes are displayed.
+     */
+    public void commitBatch(Runnable commitCallback) {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("commitBatch() called without beginBatch()");
+        }
+        if (commitCallback != null) {
+            batchCommitCallbacks.add(commitCallback);
+        }
+        if (--batchDepth == 0) {
+            List<Runnable> callbacks = new ArrayList<>(batchCommitCallbacks);
+            batchCommitCallbacks.clear();
+            batchOwnsList = false;
+            submitList(list, () -> {
+                for (Runnable callback : callbacks) {
+                    callback.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Maps a position of the displayed list to the same item in the last submitted list,
+     * they only differ while a diff is being computed.
+     */
+    private int getSubmittedPosition(int position) {
+        T item = getItem(position);
+        if (position < list.size() && list.get(position) == item) {
+            return position;
+        }
+        return positionIndex.indexOf(list, item);
+    }
+
+    /**
+     * Maps a position of the displayed list to the position before the same item in the last submitted list,
+     * the position after the last displayed item maps to the end of the submitted list.
+     */
+    private int getSubmittedInsertPosition(int position) {
+        if (position == getItemCount()) {
+            return list.size();
+        }
+        int submittedPosition = getSubmittedPosition(position);
+        return submittedPosition != -1 ? submittedPosition : Math.min(position, list.size());
+    }
+
+    /**
+     * Matches items by the key returned by keyExtractor, for example an id, instead of equals.
+     * The positions of the keys are indexed, so looking up, updating and removing items by key
+     * takes logarithmic time. Keys have to be unique.
+     */
+    public void setItemKeyExtractor(ItemKeyExtractor<T> keyExtractor) {
+        positionIndex.setKeyExtractor(keyExtractor);
+    }
+
+    /**
+     * Returns the position of the item with the given key in the last submitted list, or -1.
+     * Requires an ItemKeyExtractor.
+     */
+    public int getItemPosition(Object key) {
+        return positionIndex.indexOfKey(list, key);
+    }
+
+    public T getItemByKey(Object key) {
+        int position = getItemPosition(key);
+        return position != -1 ? list.get(position) : null;
+    }
+
+    /**
+     * See {@link GenericAdapter#bindItems(Flowable)}.
+     */
+    public Disposable bindItems(Flowable<? extends List<T>> snapshots) {
+        return delegate.bindItems(snapshots);
+    }
+
+    public Disposable bindItems(Observable<? extends List<T>> snapshots) {
+        return bindItems(snapshots.toFlowable(BackpressureStrategy.LATEST));
+    }
+
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes) {
+        return bindItemChanges(changes, DEFAULT_MAX_PENDING_CHANGES);
+    }
+
+    /**
+     * See {@link GenericAdapter#bindItemChanges(Flowable, int)}.
+     */
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes, int maxPendingChanges) {
+        return delegate.bindItemChanges(changes, maxPendingChanges, positionIndex.getKeyExtractor());
     }
 
     public void setItems(List<T> arrayList) {
+        setItems(arrayList, null);
+    }
+
+    public void setItems(List<T> arrayList, Runnable commitCallback) {
         if (list != arrayList) {
-            list = new ArrayList<>();
-            list.addAll(arrayList);
-            notifyDataSetChanged();
+            pagination.reset();
+            positionIndex.invalidate();
+            submitItems(ChunkedList.copyOf(arrayList), commitCallback);
+        }
+    }
+
+    /**
+     * Writes the items to file, so the next start can show them with restoreSnapshot before fresh items are loaded.
+     * The items are captured when this is called and written when the returned Completable is subscribed,
+     * subscribe it on a background scheduler.
+     */
+    public Completable saveSnapshot(File file, ItemSerializer<T> serializer) {
+        List<T> items = SnapshotList.snapshotOf(list);
+        return Completable.fromAction(() -> AdapterSnapshot.write(file, items, "", null, serializer));
+    }
+
+    public boolean restoreSnapshot(File file, ItemSerializer<T> serializer) throws IOException {
+        return restoreSnapshot(file, serializer, null);
+    }
+
+    /**
+     * Shows the items of a snapshot written by saveSnapshot. The file is mapped into memory and an item is only
+     * read when it is first accessed, so the first frame does not wait for the whole list. Fresh items set later
+     * are diffed against the restored ones. Returns false if there is no snapshot yet.
+     */
+    public boolean restoreSnapshot(File file, ItemSerializer<T> serializer, Runnable commitCallback) throws IOException {
+        if (!file.exists()) {
+            return false;
         }
+        AdapterSnapshot<T> snapshot = AdapterSnapshot.read(file, serializer);
+        pagination.reset();
+        positionIndex.invalidate();
+        submitItems(snapshot.getItems(), commitCallback);
+        return true;
     }
 
     public void addItems(List<T> list) {
+        addItems(list, null);
+    }
+
+    public void addItems(List<T> list, Runnable commitCallback) {
+        delegate.onItemsAdded(list.size());
         int currentSize = this.list.size();
-        this.list.addAll(list);
-        notifyItemRangeInserted(currentSize, list.size());
+        List<T> newList = editableItems();
+        newList.addAll(list);
+        positionIndex.onInserted(newList, currentSize, list.size());
+        submitItems(newList, commitCallback);
     }
 
     public void clearItems() {
-        list.clear();
-        notifyDataSetChanged();
+        clearItems(null);
+    }
+
+    public void clearItems(Runnable commitCallback) {
+        pagination.reset();
+        positionIndex.invalidate();
+        submitItems(new ArrayList<>(), commitCallback);
     }
 
     public void removeItem(T item) {
-        int position = list.indexOf(item);
-        list.remove(item);
-        notifyItemRemoved(position);
+        removeItem(item, null);
+    }
+
+    public void removeItem(T item, Runnable commitCallback) {
+        int position = positionIndex.indexOf(list, item);
+        if (position != -1) {
+            removeSubmittedItem(position, commitCallback);
+        }
+    }
+
+    public void removeItemByKey(Object key) {
+        removeItemByKey(key, null);
+    }
+
+    public void removeItemByKey(Object key, Runnable commitCallback) {
+        int position = getItemPosition(key);
+        if (position != -1) {
+            removeSubmittedItem(position, commitCallback);
+        }
     }
 
     public void removeItem(int position) {
-        list.remove(position);
-        notifyItemRemoved(position);
+        removeItem(position, null);
     }
 
+    public void removeItem(int position, Runnable commitCallback) {
+        int submittedPosition = getSubmittedPosition(position);
+        if (submittedPosition != -1) {
+            removeSubmittedItem(submittedPosition, commitCallback);
+        }
+    }
+
+    private void removeSubmittedItem(int position, Runnable commitCallback) {
+        List<T> newList = editableItems();
+        newList.remove(position);
+        positionIndex.onRemoved(position);
+        submitItems(newList, commitCallback);
+    }
+
+    @Override
     public T getItem(int position) {
-        return list.get(position);
+        return super.getItem(position);
+    }
+
+    /**
+     * Adds the item at the end. Unlike addItems, it is not counted as a loaded page.
+     */
+    public void addItem(T item) {
+        addItem(item, (Runnable) null);
+    }
+
+    public void addItem(T item, Runnable commitCallback) {
+        List<T> newList = editableItems();
+        newList.add(item);
+        positionIndex.onInserted(newList, newList.size() - 1, 1);
+        submitItems(newList, commitCallback);
     }
 
     public void addItem(T item, int position) {
-        list.add(position, item);
-        notifyItemInserted(position);
+        addItem(item, position, null);
+    }
+
+    /**
+     * Inserts the item before the displayed item at the position, like removeItem(int) and updateItem(T, int)
+     * the position is one of the displayed list, which can lag behind while a diff is being computed.
+     */
+    public void addItem(T item, int position, Runnable commitCallback) {
+        int submittedPosition = getSubmittedInsertPosition(position);
+        List<T> newList = editableItems();
+        newList.add(submittedPosition, item);
+        positionIndex.onInserted(newList, submittedPosition, 1);
+        submitItems(newList, commitCallback);
     }
 
     public void updateItem(T item, int position) {
-        list.set(position, item);
-        notifyItemChanged(position);
+        updateItem(item, position, null);
+    }
+
+    public void updateItem(T item, int position, Runnable commitCallback) {
+        int submittedPosition = getSubmittedPosition(position);
+        if (submittedPosition != -1) {
+            updateSubmittedItem(item, submittedPosition, commitCallback);
+        }
     }
 
-    public class ItemViewHolder extends RecyclerView.ViewHolder {
-        private final D dataBinding;
+    /**
+     * Replaces the item with the same key, or the equal item if no ItemKeyExtractor is set.
+     */
+    public void updateItem(T item) {
+        updateItem(item, (Runnable) null);
+    }
+
+    public void updateItem(T item, Runnable commitCallback) {
+        int position = positionIndex.indexOf(list, item);
+        if (position != -1) {
+            updateSubmittedItem(item, position, commitCallback);
+        }
+    }
+
+    private void updateSubmittedItem(T item, int position, Runnable commitCallback) {
+        List<T> newList = editableItems();
+        newList.set(position, item);
+        positionIndex.onChanged(position, item);
+        submitItems(newList, commitCallback);
+    }
+
+    public class ItemViewHolder extends BindingViewHolder<D> {
 
         private ItemViewHolder(D binding) {
-            super(binding.getRoot());
-            dataBinding = binding;
+            super(binding);
+        }
+
+        @Override
+        void onItemClick(int position) {
+            GenericListAdapter.this.onItemClick(getItem(position), position);
         }
     }
 }
\ No newline at end of file
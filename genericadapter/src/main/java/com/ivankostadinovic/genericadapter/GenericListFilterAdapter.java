@@ -1,12 +1,10 @@
 package com.ivankostadinovic.genericadapter;
 
-import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import android.widget.EditText;
 
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
-import androidx.databinding.DataBindingUtil;
 import androidx.databinding.ViewDataBinding;
 import androidx.databinding.library.baseAdapters.BR;
 import androidx.recyclerview.widget.DiffUtil;
@@ -17,25 +15,67 @@ import com.jakewharton.rxbinding4.widget.RxTextView;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.disposables.Disposable;
-import kotlin.collections.CollectionsKt;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 
 /**
  * @author manoj.bhadane manojbhadane777@gmail.com
  * edited by ivankostadinovic1994@outlook.com
  */
 
-public abstract class GenericListFilterAdapter<T, D extends ViewDataBinding> extends ListAdapter<T, GenericListFilterAdapter<T, D>.ItemViewHolder> {
+public abstract class GenericListFilterAdapter<T, D extends ViewDataBinding> extends ListAdapter<T, GenericListFilterAdapter<T, D>.ItemViewHolder>
+    implements AdapterDelegate.Host<T, D> {
 
-    private List<T> list = new ArrayList<>();
-    private List<T> filteredList = new ArrayList<>();
+    private List<T> list = new ChunkedList<>();
+    private List<T> filteredList;
     private final int layoutResId;
+    private final AdapterDelegate<T, D> delegate = new AdapterDelegate<>(this, () -> list.size());
+    private final Pagination pagination = delegate.getPagination();
     private Disposable searchDisposable;
     private final EditText searchView;
+    private final FilterEngine<T> filterEngine = new FilterEngine<>(this::filter);
+    private final Subject<String> refilterRequests = PublishSubject.create();
+    private Scheduler filterScheduler;
+    private long filterDebounceMillis = DEFAULT_FILTER_DEBOUNCE_MILLIS;
+    private String appliedQuery = "";
+    private List<T> textFilterResult;
+    private int listVersion;
+    private int staleResults;
+    private Runnable refilterCommitCallback;
+    private ItemScorer<T> itemScorer;
+    private int rankedResultLimit;
+    private int rankedResultPages = 1;
+    private Ranking<T> ranking;
+    private boolean rerankScheduled;
+    private boolean showingSnapshot;
+    private final PositionIndex<T> positionIndex = new PositionIndex<>();
+    private final PositionIndex<T> filteredPositionIndex = new PositionIndex<>();
+    private final FilterRankIndex filterRankIndex = new FilterRankIndex();
+    private final List<Runnable> batchCommitCallbacks = new ArrayList<>();
+    private int batchDepth;
+    private boolean batchOwnsFilteredList;
+    private static final int MAX_STALE_RESULTS = 3;
     public static final int DEFAULT_PAGINATION_OFFSET = 3;
+    public static final int DEFAULT_MAX_PENDING_CHANGES = 1000;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    public static final long DEFAULT_METRICS_REPORT_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_FILTER_DEBOUNCE_MILLIS = 150;
+    public static final int DEFAULT_PARALLEL_FILTER_THRESHOLD = 50000;
 
     public int paginationOffset = DEFAULT_PAGINATION_OFFSET;
 
@@ -48,37 +88,526 @@ public abstract class GenericListFilterAdapter<T, D extends ViewDataBinding> ext
     public void onCreateHolder(D dataBinding) {
     }
 
+    /**
+     * See {@link GenericAdapter#onBindPartial(Object, List, ViewDataBinding)}.
+     */
+    public void onBindPartial(T model, List<Object> payloads, D dataBinding) {
+        dataBinding.setVariable(BR.data, model);
+    }
+
     public void loadMoreItems(int loadedCount) {
 
     }
 
+    /**
+     * Called when one of the first rows is shown, if loading previous pages is enabled on getPagination.
+     */
+    public void loadPreviousItems(int loadedCount) {
+
+    }
+
+    /**
+     * See {@link GenericAdapter#onPrefetch(Object)}.
+     */
+    public void onPrefetch(T item) {
+
+    }
+
+    /**
+     * See {@link GenericAdapter#onCancelPrefetch(Object)}.
+     */
+    public void onCancelPrefetch(T item) {
+
+    }
+
+    public void setPrefetchDistance(int distance) {
+        setPrefetchDistance(distance, PrefetchWindow.defaultScheduler());
+    }
+
+    /**
+     * See {@link GenericAdapter#setPrefetchDistance(int, Scheduler)}.
+     */
+    public void setPrefetchDistance(int distance, Scheduler scheduler) {
+        delegate.setPrefetchDistance(distance, scheduler);
+    }
+
+    /**
+     * Returns the pagination of the adapter, to report the state of requested pages
+     * and to configure prefetching, retries and loading in both directions.
+     */
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setMetricsListener(MetricsListener listener) {
+        setMetricsListener(listener, DEFAULT_METRICS_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * See {@link GenericAdapter#setMetricsListener(MetricsListener, long)}.
+     */
+    public void setMetricsListener(MetricsListener listener, long reportIntervalMillis) {
+        delegate.setMetricsListener(listener, reportIntervalMillis);
+    }
+
     public GenericListFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, DiffUtil.ItemCallback<T> callback) {
         super(callback);
-        this.list.addAll(arrayList);
-        this.filteredList.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
+        this.filteredList = ChunkedList.copyOf(list);
         this.layoutResId = layoutResId;
         this.searchView = searchView;
+        submitList(this.filteredList);
     }
 
     public GenericListFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, DiffUtil.ItemCallback<T> callback, int paginationOffset) {
         super(callback);
-        this.list.addAll(arrayList);
-        this.filteredList.addAll(arrayList);
+        this.list = ChunkedList.copyOf(arrayList);
+        this.filteredList = ChunkedList.copyOf(list);
         this.layoutResId = layoutResId;
         this.searchView = searchView;
         this.paginationOffset = paginationOffset;
+        submitList(this.filteredList);
+    }
+
+    /**
+     * Enables stable ids, see {@link GenericAdapter#GenericAdapter(List, int, ItemIdExtractor)}.
+     */
+    public GenericListFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, DiffUtil.ItemCallback<T> callback, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, searchView, callback, DEFAULT_PAGINATION_OFFSET, idExtractor);
+    }
+
+    public GenericListFilterAdapter(List<T> arrayList, @LayoutRes int layoutResId, EditText searchView, DiffUtil.ItemCallback<T> callback, int paginationOffset, ItemIdExtractor<T> idExtractor) {
+        this(arrayList, layoutResId, searchView, callback, paginationOffset);
+        delegate.setIdExtractor(idExtractor);
+    }
+
+    /**
+     * Moves filtering off the main thread. Text changes are debounced by debounceMillis,
+     * a newer query cancels the one that is still being computed and the result is
+     * published on the main thread. The filter method is then called on the given scheduler,
+     * so it must not touch any views. Call this before the adapter is attached to a RecyclerView.
+     */
+    public void setFilterScheduler(Scheduler scheduler, long debounceMillis) {
+        this.filterScheduler = scheduler;
+        this.filterDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Reuses earlier results while typing. A query that extends a previous one ("ra" to "rad")
+     * is only checked against the results of the previous one, and the results of the last
+     * cacheSize queries are kept, so going back to an earlier query is instant.
+     * Only enable this when an item that matches a query also matches every prefix of that query,
+     * as contains or startsWith checks do. Pass 0 to turn it off.
+     */
+    public void setIncrementalFiltering(int cacheSize) {
+        filterEngine.setCacheSize(cacheSize);
     }
 
-    private void filterList(CharSequence text) {
-        filteredList = CollectionsKt.filter(list, item -> filter(item, text.toString()));
-        notifyDataSetChanged();
+    /**
+     * Filters lists with at least threshold items on all cores. The list is split into chunks that are
+     * filtered on the computation scheduler and the filtering thread at once, and the results keep the
+     * list order. A newer query stops the remaining chunks. The filter method is then called from several
+     * threads at the same time, so it must not modify shared state.
+     * DEFAULT_PARALLEL_FILTER_THRESHOLD is a good start, pass 0 to turn it off.
+     */
+    public void setParallelFiltering(int threshold) {
+        filterEngine.setParallelFiltering(threshold, Schedulers.computation());
+    }
+
+    /**
+     * Searches a trigram index over the keys returned by keyExtractor instead of calling filter
+     * for every item. An item matches when its key contains the query, ignoring case and accents.
+     * The index is kept up to date by the adapter methods. Large lists are indexed on a background
+     * thread, and until that is done the keys are scanned instead.
+     * Call this before the adapter is attached to a RecyclerView, pass null to turn it off.
+     */
+    public void setSearchKeyExtractor(SearchKeyExtractor<T> keyExtractor) {
+        filterEngine.setSearchKeyExtractor(keyExtractor);
+        indexItems();
+    }
+
+    private void indexItems() {
+        Scheduler workScheduler = filterScheduler != null ? filterScheduler : Schedulers.computation();
+        filterEngine.indexItems(list, workScheduler, AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * Shows the items that the scorer matched, best first, instead of filtering them while a query is entered.
+     * Every item is scored once and only the best limit items are kept, showMoreResults shows the next limit.
+     * The ranges the scorer matched are kept, so onBindData can highlight them with getMatchRanges.
+     * Facets still apply, and the results are ranked again after the items change. Pass null to filter again.
+     */
+    public void setItemScorer(ItemScorer<T> scorer, int limit) {
+        setItemScorer(scorer, limit, null);
+    }
+
+    /**
+     * The commit callback runs once the results are displayed.
+     */
+    public void setItemScorer(ItemScorer<T> scorer, int limit, Runnable commitCallback) {
+        this.itemScorer = scorer;
+        this.rankedResultLimit = limit;
+        rankedResultPages = 1;
+        refilter(commitCallback);
+    }
+
+    public boolean showMoreResults() {
+        return showMoreResults(null);
+    }
+
+    /**
+     * Shows the next limit ranked results, returns false if there are none.
+     * The commit callback runs once they are displayed.
+     */
+    public boolean showMoreResults(Runnable commitCallback) {
+        if (!hasMoreResults()) {
+            return false;
+        }
+        rankedResultPages++;
+        refilter(commitCallback);
+        return true;
+    }
+
+    public boolean hasMoreResults() {
+        return ranking != null && !ranking.isComplete();
+    }
+
+    /**
+     * Returns the ranges of the item's search key that matched the query, or null if the results are not ranked.
+     */
+    public MatchRanges getMatchRanges(T item) {
+        return ranking != null ? ranking.getMatchRanges(item) : null;
+    }
+
+    private boolean isRanking(String text) {
+        return itemScorer != null && !text.isEmpty();
+    }
+
+    /**
+     * Shows only the items that also match the facet, on top of the text filter. Facets of the same group
+     * are combined with OR and different groups with AND, a facet with the name of an existing one replaces it.
+     * The matches of every facet are cached as a bit set over the items, so changing a facet only checks
+     * that facet and the text filter does not run again.
+     */
+    public void setFacet(String name, String group, Facet<T> facet) {
+        setFacet(name, group, facet, null);
+    }
+
+    /**
+     * The commit callback runs once the filtered items are displayed.
+     */
+    public void setFacet(String name, String group, Facet<T> facet, Runnable commitCallback) {
+        filterEngine.setFacet(name, group, facet, list);
+        applyFacets(commitCallback);
+    }
+
+    /**
+     * Sets a facet that forms its own group, so it is combined with the other facets with AND.
+     */
+    public void setFacet(String name, Facet<T> facet) {
+        setFacet(name, name, facet, null);
+    }
+
+    public void removeFacet(String name) {
+        removeFacet(name, null);
+    }
+
+    public void removeFacet(String name, Runnable commitCallback) {
+        filterEngine.removeFacet(name);
+        applyFacets(commitCallback);
+    }
+
+    private void applyFacets(Runnable commitCallback) {
+        if (textFilterResult != null) {
+            submitFacetMatches(commitCallback);
+        } else {
+            refilter(commitCallback);
+        }
+    }
+
+    private boolean isFilteringInBackground() {
+        return filterScheduler != null && searchDisposable != null && !searchDisposable.isDisposed();
+    }
+
+    private void filterList(String text) {
+        filterList(text, null);
+    }
+
+    private void filterList(String text, Runnable commitCallback) {
+        if (showingSnapshot && text.equals(appliedQuery)) {
+            //the restored snapshot already shows the result of the query
+            return;
+        }
+        showingSnapshot = false;
+        if (!text.equals(appliedQuery)) {
+            rankedResultPages = 1;
+        }
+        appliedQuery = text;
+        MetricsRecorder metrics = delegate.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (isRanking(text)) {
+            Ranking<T> result = filterEngine.rank(filterEngine.retainFacetMatches(list, list), text, itemScorer, rankedResultLimit * rankedResultPages);
+            if (metrics != null) {
+                metrics.recordFilter(start, result.getItems().size());
+            }
+            submitRanking(result, commitCallback);
+            return;
+        }
+        ranking = null;
+        textFilterResult = filterEngine.filterItems(list, text);
+        if (metrics != null) {
+            metrics.recordFilter(start, textFilterResult.size());
+        }
+        submitFacetMatches(commitCallback);
+    }
+
+    private void submitRanking(Ranking<T> result, Runnable commitCallback) {
+        ranking = result;
+        textFilterResult = null;
+        filteredPositionIndex.invalidate();
+        filterRankIndex.invalidate();
+        batchOwnsFilteredList = false;
+        submitFilteredItems(ChunkedList.copyOf(result.getItems()), commitCallback);
+    }
+
+    private void submitFacetMatches(Runnable commitCallback) {
+        filteredPositionIndex.invalidate();
+        filterRankIndex.invalidate();
+        batchOwnsFilteredList = false;
+        submitFilteredItems(filterEngine.retainFacetMatches(list, textFilterResult), commitCallback);
+    }
+
+    private void refilter(Runnable commitCallback) {
+        showingSnapshot = false;
+        if (isFilteringInBackground()) {
+            //the current results stay visible until the new ones are computed
+            refilterCommitCallback = commitCallback;
+            refilterRequests.onNext(searchView.getText().toString());
+        } else {
+            filterList(searchView.getText().toString(), commitCallback);
+        }
+    }
+
+    /**
+     * Hands the filtered items to the ListAdapter, which diffs them against the displayed list
+     * on a background thread. The submitted list is never changed afterwards, every change
+     * is applied to a new copy of it, so changes made before an earlier diff completes are not lost.
+     */
+    private void submitFilteredItems(List<T> items, Runnable commitCallback) {
+        filteredList = items;
+        if (batchDepth > 0) {
+            if (commitCallback != null) {
+                batchCommitCallbacks.add(commitCallback);
+            }
+        } else {
+            submitList(items, commitCallback);
+        }
+    }
+
+    /**
+     * Returns a copy of the filtered items that can be changed and submitted.
+     * During a batch all changes are made on the same copy, which is submitted by commitBatch.
+     */
+    private List<T> editableFilteredItems() {
+        if (batchOwnsFilteredList) {
+            return filteredList;
+        }
+        batchOwnsFilteredList = batchDepth > 0;
+        return ChunkedList.copyOf(filteredList);
+    }
+
+    /**
+     * Starts recording changes instead of submitting a new list for each of them. Batches can be nested,
+     * the outermost commitBatch submits all the changes as one list, so they are diffed only once.
+     * The filter is only checked for the items that were added or updated.
+     * Call commitBatch in a finally block, a batch that is never committed keeps every later change unsubmitted.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void commitBatch() {
+        commitBatch(null);
+    }
+
+    /**
+     * The commit callback, and the callbacks passed to the adapter methods during the batch,
+     * run once the changes are displayed.
+     */
+    public void commitBatch(Runnable commitCallback) {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("commitBatch() called without beginBatch()");
+        }
+        if (commitCallback != null) {
+            batchCommitCallbacks.add(commitCallback);
+        }
+        if (--batchDepth == 0) {
+            List<Runnable> callbacks = new ArrayList<>(batchCommitCallbacks);
+            batchCommitCallbacks.clear();
+            batchOwnsFilteredList = false;
+            submitList(filteredList, () -> {
+                for (Runnable callback : callbacks) {
+                    callback.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Maps a position of the displayed list to the same item in the last submitted list,
+     * they only differ while a diff is being computed.
+     */
+    private int getSubmittedPosition(int position) {
+        T item = getItem(position);
+        if (position < filteredList.size() && filteredList.get(position) == item) {
+            return position;
+        }
+        return filteredPositionIndex.indexOf(filteredList, item);
+    }
+
+    private void onListChanged() {
+        listVersion++;
+        textFilterResult = null;
+        filterEngine.invalidateCache();
+        if (ranking != null) {
+            scheduleRerank();
+        }
+    }
+
+    /**
+     * Changed items are filtered into the ranked results right away, and all of them are ranked again once,
+     * after the current batch of changes.
+     */
+    private void scheduleRerank() {
+        if (!rerankScheduled) {
+            rerankScheduled = true;
+            AndroidSchedulers.mainThread().scheduleDirect(() -> {
+                rerankScheduled = false;
+                if (ranking != null) {
+                    refilter(null);
+                }
+            });
+        }
+    }
+
+    private Observable<?> search(String text) {
+        if (showingSnapshot && text.equals(appliedQuery)) {
+            return Observable.empty();
+        }
+        showingSnapshot = false;
+        if (!text.equals(appliedQuery)) {
+            rankedResultPages = 1;
+        }
+        return isRanking(text) ? rankInBackground(text) : filterInBackground(text);
+    }
+
+    private Observable<Ranking<T>> rankInBackground(String text) {
+        int version = listVersion;
+        int limit = rankedResultLimit * rankedResultPages;
+        ItemScorer<T> scorer = itemScorer;
+        List<T> snapshot = SnapshotList.snapshotOf(filterEngine.retainFacetMatches(list, list));
+        MetricsRecorder metrics = delegate.getMetrics();
+        return Observable.<Ranking<T>>create(emitter -> {
+            long start = metrics != null ? System.nanoTime() : 0;
+            Ranking<T> result = filterEngine.rank(snapshot, text, scorer, limit, emitter::isDisposed);
+            if (result != null) {
+                if (metrics != null) {
+                    metrics.recordFilter(start, result.getItems().size());
+                }
+                emitter.onNext(result);
+            }
+            emitter.onComplete();
+        })
+            .subscribeOn(filterScheduler)
+            .observeOn(AndroidSchedulers.mainThread())
+            .doOnNext(result -> publishRanking(text, version, result));
+    }
+
+    private void publishRanking(String text, int version, Ranking<T> result) {
+        if (version != listVersion) {
+            if (++staleResults <= MAX_STALE_RESULTS) {
+                postRefilter();
+                return;
+            }
+            //the items keep changing faster than they are ranked, rank the current ones here instead
+            result = filterEngine.rank(filterEngine.retainFacetMatches(list, list), text, itemScorer, rankedResultLimit * rankedResultPages);
+        }
+        staleResults = 0;
+        appliedQuery = text;
+        Runnable commitCallback = refilterCommitCallback;
+        refilterCommitCallback = null;
+        submitRanking(result, commitCallback);
+    }
+
+    private Observable<List<T>> filterInBackground(String text) {
+        int version = listVersion;
+        List<T> immediateResult = filterEngine.isIndexReady()
+            ? filterEngine.filterItems(list, text)
+            : filterEngine.getCachedResult(text);
+        if (immediateResult != null) {
+            return Observable.just(immediateResult)
+                .doOnNext(result -> publishFilterResult(text, version, result));
+        }
+        List<T> snapshot = SnapshotList.snapshotOf(filterEngine.getCandidates(list, text));
+        MetricsRecorder metrics = delegate.getMetrics();
+        return Observable.<List<T>>create(emitter -> {
+            long start = metrics != null ? System.nanoTime() : 0;
+            List<T> result = filterEngine.filter(snapshot, text, emitter::isDisposed);
+            if (result != null) {
+                if (metrics != null) {
+                    metrics.recordFilter(start, result.size());
+                }
+                emitter.onNext(result);
+            }
+            emitter.onComplete();
+        })
+            .subscribeOn(filterScheduler)
+            .observeOn(AndroidSchedulers.mainThread())
+            .doOnNext(result -> publishFilterResult(text, version, result));
+    }
+
+    private void publishFilterResult(String text, int version, List<T> result) {
+        if (version != listVersion) {
+            //the items changed while the filter was running, so the result is already stale
+            if (++staleResults <= MAX_STALE_RESULTS) {
+                postRefilter();
+                return;
+            }
+            //the items keep changing faster than they are filtered, filter the current ones here instead
+            result = filterEngine.filterItems(list, text);
+        }
+        staleResults = 0;
+        appliedQuery = text;
+        filterEngine.cacheResult(text, result);
+        Runnable commitCallback = refilterCommitCallback;
+        refilterCommitCallback = null;
+        ranking = null;
+        textFilterResult = result;
+        submitFacetMatches(commitCallback);
+    }
+
+    /**
+     * Filters the current items again once the main thread is done with the current work, with the current query,
+     * so a newer query that was typed in the meantime is not replaced by the stale one.
+     */
+    private void postRefilter() {
+        AndroidSchedulers.mainThread().scheduleDirect(() -> refilterRequests.onNext(searchView.getText().toString()));
     }
 
     @Override
     public void onAttachedToRecyclerView(@NonNull @NotNull RecyclerView recyclerView) {
-        searchDisposable = RxTextView
+        Observable<String> textChanges = RxTextView
             .textChanges(searchView)
-            .subscribe(this::filterList);
+            .map(CharSequence::toString);
+        if (filterScheduler == null) {
+            searchDisposable = textChanges.subscribe(this::filterList);
+        } else {
+            searchDisposable = Observable
+                .merge(textChanges.debounce(filterDebounceMillis, TimeUnit.MILLISECONDS, AndroidSchedulers.mainThread()), refilterRequests)
+                .switchMap(this::search)
+                .subscribe();
+        }
+        delegate.onAttachedToRecyclerView(recyclerView);
         super.onAttachedToRecyclerView(recyclerView);
     }
 
@@ -87,88 +616,427 @@ public abstract class GenericListFilterAdapter<T, D extends ViewDataBinding> ext
         if (searchDisposable != null) {
             searchDisposable.dispose();
         }
+        delegate.onDetachedFromRecyclerView(recyclerView);
         super.onDetachedFromRecyclerView(recyclerView);
     }
 
+    /**
+     * See {@link GenericAdapter#setViewType(Class, int)}.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId) {
+        delegate.setViewType(itemClass, layoutResId);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewType(Class, int, int)}.
+     */
+    public void setViewType(Class<? extends T> itemClass, @LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setViewType(itemClass, layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * See {@link GenericAdapter#setViewTypeResolver(ViewTypeResolver)}.
+     */
+    public void setViewTypeResolver(ViewTypeResolver<T> resolver) {
+        delegate.setViewTypeResolver(resolver);
+    }
+
+    /**
+     * See {@link GenericAdapter#setMaxRecycledViews(int, int)}.
+     */
+    public void setMaxRecycledViews(@LayoutRes int layoutResId, int maxRecycledViews) {
+        delegate.setMaxRecycledViews(layoutResId, maxRecycledViews);
+    }
+
+    /**
+     * See {@link GenericAdapter#setWarmUpCount(int, int)}.
+     */
+    public void setWarmUpCount(@LayoutRes int layoutResId, int count) {
+        delegate.setWarmUpCount(layoutResId, count);
+    }
+
+    /**
+     * See {@link GenericAdapter#getWarmCreateCount()}.
+     */
+    public int getWarmCreateCount() {
+        return delegate.getWarmCreateCount();
+    }
+
+    /**
+     * See {@link GenericAdapter#getColdCreateCount()}.
+     */
+    public int getColdCreateCount() {
+        return delegate.getColdCreateCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return delegate.getItemViewType(getItem(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return delegate.getItemId(getItem(position));
+    }
+
+    @Override
+    public void submitList(List<T> items) {
+        submitList(items, null);
+    }
+
+    @Override
+    public void submitList(List<T> items, Runnable commitCallback) {
+        MetricsRecorder metrics = delegate.getMetrics();
+        if (metrics != null) {
+            metrics.onDiffStarted();
+        }
+        super.submitList(items, commitCallback);
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<T> previousList, @NonNull List<T> currentList) {
+        MetricsRecorder metrics = delegate.getMetrics();
+        if (metrics != null) {
+            metrics.onDiffFinished();
+        }
+        super.onCurrentListChanged(previousList, currentList);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ItemViewHolder holder) {
+        delegate.onViewRecycled(holder);
+        super.onViewRecycled(holder);
+    }
+
     @NonNull
     @Override
     public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        D dataBinding = DataBindingUtil.inflate(LayoutInflater.from(parent.getContext()), layoutResId, parent, false);
-        onCreateHolder(dataBinding);
-        return new ItemViewHolder(dataBinding);
+        return new ItemViewHolder(delegate.createBinding(parent, viewType, layoutResId));
     }
 
     @Override
     public void onBindViewHolder(@NonNull ItemViewHolder holder, final int position) {
-        final T item = filteredList.get(position);
-        holder.dataBinding.setVariable(BR.data, item);
-        onBindData(item, position, holder.dataBinding);
-        holder.dataBinding.executePendingBindings();
-        holder.dataBinding.getRoot().setOnClickListener(view -> onItemClick(item, position));
-        if (position == getItemCount() - paginationOffset) {
-            loadMoreItems(list.size());
-        }
+        delegate.bind(holder, getItem(position), position, paginationOffset);
     }
 
     @Override
-    public int getItemCount() {
-        return filteredList.size();
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        delegate.bindPartial(holder, getItem(position), position, paginationOffset, payloads);
+    }
+
+    /**
+     * Matches items by the key returned by keyExtractor, for example an id, instead of equals.
+     * The positions of the keys are indexed in both the filtered and the unfiltered list,
+     * so looking up, updating and removing items by key takes logarithmic time. Keys have to be unique.
+     */
+    public void setItemKeyExtractor(ItemKeyExtractor<T> keyExtractor) {
+        positionIndex.setKeyExtractor(keyExtractor);
+        filteredPositionIndex.setKeyExtractor(keyExtractor);
+    }
+
+    /**
+     * See {@link GenericAdapter#bindItems(Flowable)}.
+     */
+    public Disposable bindItems(Flowable<? extends List<T>> snapshots) {
+        return delegate.bindItems(snapshots);
+    }
+
+    public Disposable bindItems(Observable<? extends List<T>> snapshots) {
+        return bindItems(snapshots.toFlowable(BackpressureStrategy.LATEST));
+    }
+
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes) {
+        return bindItemChanges(changes, DEFAULT_MAX_PENDING_CHANGES);
+    }
+
+    /**
+     * See {@link GenericAdapter#bindItemChanges(Flowable, int)}.
+     */
+    public Disposable bindItemChanges(Flowable<ItemChange<T>> changes, int maxPendingChanges) {
+        return delegate.bindItemChanges(changes, maxPendingChanges, positionIndex.getKeyExtractor());
     }
 
     public void setItems(List<T> arrayList) {
+        setItems(arrayList, null);
+    }
+
+    /**
+     * The commit callback runs once the filtered items are displayed.
+     */
+    public void setItems(List<T> arrayList, Runnable commitCallback) {
         if (list != arrayList) {
-            list = new ArrayList<>();
-            list.addAll(arrayList);
-            filteredList = new ArrayList<>();
-            filteredList.addAll(arrayList);
-            filterList(searchView.getText().toString());
+            pagination.reset();
+            list = ChunkedList.copyOf(arrayList);
+            positionIndex.invalidate();
+            filterRankIndex.invalidate();
+            onListChanged();
+            indexItems();
+            refilter(commitCallback);
+        }
+    }
+
+    /**
+     * Writes the items, the query and the filtered items to file, so the next start can show them
+     * with restoreSnapshot before fresh items are loaded. Everything is captured when this is called and written
+     * when the returned Completable is subscribed, subscribe it on a background scheduler.
+     */
+    public Completable saveSnapshot(File file, ItemSerializer<T> serializer) {
+        List<T> items = SnapshotList.snapshotOf(list);
+        List<T> filteredItems = SnapshotList.snapshotOf(filteredList);
+        String query = appliedQuery;
+        return Completable.fromAction(() -> AdapterSnapshot.write(file, items, query, filteredItems, serializer));
+    }
+
+    public boolean restoreSnapshot(File file, ItemSerializer<T> serializer) throws IOException {
+        return restoreSnapshot(file, serializer, null);
+    }
+
+    /**
+     * Shows the items and the filter result of a snapshot written by saveSnapshot, and puts its query into
+     * the search view without filtering again. The file is mapped into memory and an item is only read when it is
+     * first accessed, so the first frame does not wait for the whole list. Fresh items set later are diffed against
+     * the restored ones, and facets and the search index are built from the restored items.
+     * Ranked results are restored in their order, but without match ranges. Returns false if there is no snapshot yet.
+     */
+    public boolean restoreSnapshot(File file, ItemSerializer<T> serializer, Runnable commitCallback) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        AdapterSnapshot<T> snapshot = AdapterSnapshot.read(file, serializer);
+        pagination.reset();
+        ranking = null;
+        list = snapshot.getItems();
+        positionIndex.invalidate();
+        filterRankIndex.invalidate();
+        onListChanged();
+        indexItems();
+        if (snapshot.getFilteredItems() == null) {
+            refilter(commitCallback);
+            return true;
         }
+        appliedQuery = snapshot.getQuery();
+        filteredPositionIndex.invalidate();
+        batchOwnsFilteredList = false;
+        showingSnapshot = true;
+        searchView.setText(appliedQuery);
+        submitFilteredItems(snapshot.getFilteredItems(), commitCallback);
+        return true;
     }
 
     public void clearItems() {
+        clearItems(null);
+    }
+
+    public void clearItems(Runnable commitCallback) {
+        pagination.reset();
         list.clear();
-        filteredList.clear();
-        notifyDataSetChanged();
+        positionIndex.invalidate();
+        filteredPositionIndex.invalidate();
+        filterRankIndex.invalidate();
+        onListChanged();
+        indexItems();
+        submitFilteredItems(new ArrayList<>(), commitCallback);
     }
 
+    @Override
     public T getItem(int position) {
-        return filteredList.get(position);
+        return super.getItem(position);
+    }
+
+    /**
+     * Returns the item with the given key, even if it is filtered out, or null. Requires an ItemKeyExtractor.
+     */
+    public T getItemByKey(Object key) {
+        int unfilteredListPosition = positionIndex.indexOfKey(list, key);
+        return unfilteredListPosition != -1 ? list.get(unfilteredListPosition) : null;
+    }
+
+    /**
+     * Returns the position of the item with the given key in the last submitted filtered list,
+     * or -1 if it is filtered out or not in the list. Requires an ItemKeyExtractor.
+     */
+    public int getItemPosition(Object key) {
+        return filteredPositionIndex.indexOfKey(filteredList, key);
     }
 
     public void removeItem(int position) {
-        T itemToRemove = filteredList.get(position);
-        filteredList.remove(position);
-        list.remove(itemToRemove);
-        notifyItemRemoved(position);
+        removeItem(position, null);
+    }
+
+    public void removeItem(int position, Runnable commitCallback) {
+        int filteredListPosition = getSubmittedPosition(position);
+        int unfilteredListPosition = positionIndex.indexOf(list, getItem(position));
+        if (unfilteredListPosition != -1) {
+            removeUnfilteredItem(unfilteredListPosition);
+        }
+        onListChanged();
+        if (filteredListPosition != -1) {
+            removeFilteredItem(filteredListPosition, commitCallback);
+        }
     }
 
     public void removeItem(T item) {
-        int position = list.indexOf(item);
-        filteredList.remove(item);
-        list.remove(item);
-        notifyItemRemoved(position);
+        removeItem(item, null);
+    }
+
+    public void removeItem(T item, Runnable commitCallback) {
+        int unfilteredListPosition = positionIndex.indexOf(list, item);
+        if (unfilteredListPosition != -1) {
+            removeUnfilteredItem(unfilteredListPosition);
+        }
+        onListChanged();
+        int filteredListPosition = filteredPositionIndex.indexOf(filteredList, item);
+        if (filteredListPosition != -1) {
+            removeFilteredItem(filteredListPosition, commitCallback);
+        }
+    }
+
+    public void removeItemByKey(Object key) {
+        removeItemByKey(key, null);
+    }
+
+    public void removeItemByKey(Object key, Runnable commitCallback) {
+        int unfilteredListPosition = positionIndex.indexOfKey(list, key);
+        if (unfilteredListPosition != -1) {
+            removeUnfilteredItem(unfilteredListPosition);
+        }
+        onListChanged();
+        int filteredListPosition = getItemPosition(key);
+        if (filteredListPosition != -1) {
+            removeFilteredItem(filteredListPosition, commitCallback);
+        }
+    }
+
+    private void removeUnfilteredItem(int unfilteredListPosition) {
+        list.remove(unfilteredListPosition);
+        positionIndex.onRemoved(unfilteredListPosition);
+        filterRankIndex.onRemoved(unfilteredListPosition);
+        filterEngine.onItemRemoved(unfilteredListPosition);
+    }
+
+    private void removeFilteredItem(int filteredListPosition, Runnable commitCallback) {
+        List<T> newFilteredList = editableFilteredItems();
+        newFilteredList.remove(filteredListPosition);
+        filteredPositionIndex.onRemoved(filteredListPosition);
+        submitFilteredItems(newFilteredList, commitCallback);
     }
 
     public void addItems(List<T> items) {
+        addItems(items, null);
+    }
+
+    public void addItems(List<T> items, Runnable commitCallback) {
+        delegate.onItemsAdded(items.size());
+        appendItems(items, commitCallback);
+    }
+
+    /**
+     * Adds the item at the end. Unlike addItems, it is not counted as a loaded page.
+     */
+    public void addItem(T item) {
+        addItem(item, null);
+    }
+
+    public void addItem(T item, Runnable commitCallback) {
+        appendItems(Collections.singletonList(item), commitCallback);
+    }
+
+    private void appendItems(List<T> items, Runnable commitCallback) {
+        int currentSize = list.size();
         list.addAll(items);
-        List<T> newFilteredItems = CollectionsKt.filter(items, item -> filter(item, searchView.getText().toString()));
-        filteredList.addAll(newFilteredItems);
-        notifyItemRangeInserted(filteredList.size(), newFilteredItems.size());
+        positionIndex.onInserted(list, currentSize, items.size());
+        onListChanged();
+        filterEngine.onItemsInserted(currentSize, items);
+        List<T> newFilteredItems = filterEngine.filterWithFacets(items, appliedQuery);
+        int currentFilteredSize = filteredList.size();
+        List<T> newFilteredList = editableFilteredItems();
+        newFilteredList.addAll(newFilteredItems);
+        filteredPositionIndex.onInserted(newFilteredList, currentFilteredSize, newFilteredItems.size());
+        filterRankIndex.onAppended(items, newFilteredItems);
+        submitFilteredItems(newFilteredList, commitCallback);
     }
 
     public void updateItem(T item, int position) {
-        int unfilteredListPosition = list.indexOf(filteredList.get(position));
+        updateItem(item, position, null);
+    }
+
+    /**
+     * Replaces the item at the position. If the new item does not match the current query, it is filtered out.
+     */
+    public void updateItem(T item, int position, Runnable commitCallback) {
+        int filteredListPosition = getSubmittedPosition(position);
+        if (filteredListPosition == -1) {
+            return;
+        }
+        int unfilteredListPosition = positionIndex.indexOf(list, filteredList.get(filteredListPosition));
+        if (unfilteredListPosition != -1) {
+            updateUnfilteredItem(item, unfilteredListPosition);
+        }
+        onListChanged();
+        if (filterEngine.matches(item, appliedQuery)) {
+            updateFilteredItem(item, filteredListPosition, commitCallback);
+        } else {
+            if (unfilteredListPosition != -1) {
+                filterRankIndex.setShown(unfilteredListPosition, false);
+            }
+            removeFilteredItem(filteredListPosition, commitCallback);
+        }
+    }
+
+    /**
+     * Replaces the item with the same key, or the equal item if no ItemKeyExtractor is set.
+     * The item is filtered in or out depending on whether it matches the current query.
+     */
+    public void updateItem(T item) {
+        updateItem(item, (Runnable) null);
+    }
+
+    public void updateItem(T item, Runnable commitCallback) {
+        int unfilteredListPosition = positionIndex.indexOf(list, item);
+        if (unfilteredListPosition == -1) {
+            return;
+        }
+        updateUnfilteredItem(item, unfilteredListPosition);
+        onListChanged();
+        int filteredListPosition = filteredPositionIndex.indexOf(filteredList, item);
+        boolean matches = filterEngine.matches(item, appliedQuery);
+        if (filteredListPosition != -1 && matches) {
+            updateFilteredItem(item, filteredListPosition, commitCallback);
+        } else if (filteredListPosition != -1) {
+            filterRankIndex.setShown(unfilteredListPosition, false);
+            removeFilteredItem(filteredListPosition, commitCallback);
+        } else if (matches) {
+            int insertPosition = filterRankIndex.positionInResult(list, filteredList, unfilteredListPosition);
+            List<T> newFilteredList = editableFilteredItems();
+            newFilteredList.add(insertPosition, item);
+            filteredPositionIndex.onInserted(newFilteredList, insertPosition, 1);
+            filterRankIndex.setShown(unfilteredListPosition, true);
+            submitFilteredItems(newFilteredList, commitCallback);
+        }
+    }
+
+    private void updateUnfilteredItem(T item, int unfilteredListPosition) {
         list.set(unfilteredListPosition, item);
-        filteredList.set(position, item);
-        notifyItemChanged(position);
+        positionIndex.onChanged(unfilteredListPosition, item);
+        filterEngine.onItemChanged(unfilteredListPosition, item);
     }
 
-    public class ItemViewHolder extends RecyclerView.ViewHolder {
-        private final D dataBinding;
+    private void updateFilteredItem(T item, int filteredListPosition, Runnable commitCallback) {
+        List<T> newFilteredList = editableFilteredItems();
+        newFilteredList.set(filteredListPosition, item);
+        filteredPositionIndex.onChanged(filteredListPosition, item);
+        submitFilteredItems(newFilteredList, commitCallback);
+    }
+
+    public class ItemViewHolder extends BindingViewHolder<D> {
 
         private ItemViewHolder(D binding) {
-            super(binding.getRoot());
-            dataBinding = binding;
+            super(binding);
+        }
+
+        @Override
+        void onItemClick(int position) {
+            GenericListFilterAdapter.this.onItemClick(getItem(position), position);
         }
     }
 }
\ No newline at end of file
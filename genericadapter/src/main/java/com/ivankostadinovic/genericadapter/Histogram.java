@@ -0,0 +1,92 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Counts recorded values in buckets that grow exponentially, four per power of two, so percentiles
+ * are accurate to within about 12% at a fixed size and recording never allocates.
+ * Values below 8 are counted exactly.
+ */
+public final class Histogram {
+
+    private static final int EXACT_VALUES = 8;
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKET_COUNT = EXACT_VALUES + (63 - 3) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long max;
+    private long sum;
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    public long getP95() {
+        return getPercentile(95);
+    }
+
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * Returns the value below which the given percent of the recorded values fall, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, valueOf(bucket));
+            }
+        }
+        return max;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (highestBit - 2)) & (SUB_BUCKETS - 1);
+        return EXACT_VALUES + (highestBit - 3) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the middle of the bucket.
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < EXACT_VALUES) {
+            return bucket;
+        }
+        int highestBit = (bucket - EXACT_VALUES) / SUB_BUCKETS + 3;
+        int subBucket = (bucket - EXACT_VALUES) % SUB_BUCKETS;
+        long width = 1L << (highestBit - 2);
+        return (SUB_BUCKETS + subBucket) * width + width / 2;
+    }
+}
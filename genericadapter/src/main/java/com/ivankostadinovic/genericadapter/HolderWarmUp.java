@@ -0,0 +1,89 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.view.ViewGroup;
+
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.databinding.DataBindingUtil;
+import androidx.databinding.ViewDataBinding;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inflates the layouts of view holders ahead of time. The layouts are inflated on a background thread
+ * by AsyncLayoutInflater, which falls back to the main thread for layouts that can not be inflated
+ * in the background, and the bindings are created on the main thread once a view is ready.
+ * The adapters take the prepared bindings in onCreateViewHolder before inflating new ones.
+ */
+final class HolderWarmUp {
+
+    private final Map<Integer, Integer> counts = new HashMap<>();
+    private final Map<Integer, ArrayDeque<ViewDataBinding>> bindings = new HashMap<>();
+    private int warmCreateCount;
+    private int coldCreateCount;
+    private int generation;
+
+    void setCount(int layoutResId, int count) {
+        counts.put(layoutResId, count);
+    }
+
+    void start(ViewGroup parent) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        int startedGeneration = ++generation;
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(parent.getContext());
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                inflater.inflate(entry.getKey(), parent, (view, layoutResId, viewParent) -> {
+                    //views inflated for a RecyclerView the adapter was detached from are dropped
+                    if (startedGeneration == generation) {
+                        ViewDataBinding binding = DataBindingUtil.bind(view);
+                        if (binding != null) {
+                            getBindings(layoutResId).add(binding);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    void stop() {
+        generation++;
+        bindings.clear();
+    }
+
+    /**
+     * Returns a prepared binding of the layout, or null if none is left.
+     * Only misses of layouts with a warm-up count are counted as cold creates.
+     */
+    @SuppressWarnings("unchecked")
+    <D extends ViewDataBinding> D take(int layoutResId) {
+        ArrayDeque<ViewDataBinding> prepared = bindings.get(layoutResId);
+        ViewDataBinding binding = prepared != null ? prepared.poll() : null;
+        if (binding != null) {
+            warmCreateCount++;
+        } else if (counts.containsKey(layoutResId)) {
+            coldCreateCount++;
+        }
+        return (D) binding;
+    }
+
+    int getWarmCreateCount() {
+        return warmCreateCount;
+    }
+
+    int getColdCreateCount() {
+        return coldCreateCount;
+    }
+
+    private ArrayDeque<ViewDataBinding> getBindings(int layoutResId) {
+        ArrayDeque<ViewDataBinding> prepared = bindings.get(layoutResId);
+        if (prepared == null) {
+            prepared = new ArrayDeque<>();
+            bindings.put(layoutResId, prepared);
+        }
+        return prepared;
+    }
+}
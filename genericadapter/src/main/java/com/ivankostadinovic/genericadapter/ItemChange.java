@@ -0,0 +1,71 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * An item that was added, updated or removed, for binding an adapter to a stream of changes
+ * with bindItemChanges. Updated and removed items are matched by their key, or by equals
+ * if no ItemKeyExtractor is set.
+ */
+public final class ItemChange<T> {
+
+    public enum Type {
+        ADDED, UPDATED, REMOVED
+    }
+
+    private final Type type;
+    private final T item;
+
+    private ItemChange(Type type, T item) {
+        this.type = type;
+        this.item = item;
+    }
+
+    public static <T> ItemChange<T> added(T item) {
+        return new ItemChange<>(Type.ADDED, item);
+    }
+
+    public static <T> ItemChange<T> updated(T item) {
+        return new ItemChange<>(Type.UPDATED, item);
+    }
+
+    public static <T> ItemChange<T> removed(T item) {
+        return new ItemChange<>(Type.REMOVED, item);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    /**
+     * Merges a change into the pending change of the same item: an update replaces a pending update,
+     * and turns a pending addition into the addition of the updated item. Returns null otherwise.
+     */
+    static <T> ItemChange<T> merge(ItemChange<T> pending, ItemChange<T> change) {
+        if (change.type != Type.UPDATED || pending.type == Type.REMOVED) {
+            return null;
+        }
+        return new ItemChange<>(pending.type, change.item);
+    }
+
+    /**
+     * Merges the changes of items with the same key, or equal items if keyExtractor is null.
+     * The merger runs on the emitting thread, so it keeps the extractor it was created with
+     * instead of reading the one the adapter has at the time.
+     */
+    static <T> FrameCoalescer.Merger<ItemChange<T>> merger(ItemKeyExtractor<T> keyExtractor) {
+        return new FrameCoalescer.Merger<ItemChange<T>>() {
+            @Override
+            public Object getKey(ItemChange<T> change) {
+                return keyExtractor != null ? keyExtractor.getItemKey(change.item) : change.item;
+            }
+
+            @Override
+            public ItemChange<T> merge(ItemChange<T> pending, ItemChange<T> change) {
+                return ItemChange.merge(pending, change);
+            }
+        };
+    }
+}
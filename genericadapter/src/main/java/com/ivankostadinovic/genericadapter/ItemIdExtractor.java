@@ -0,0 +1,9 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Returns a stable id for an item, for example its database id. Ids have to be unique
+ * and must not change while the item is in the list.
+ */
+public interface ItemIdExtractor<T> {
+    long getItemId(T item);
+}
@@ -0,0 +1,8 @@
+package com.ivankostadinovic.genericadapter;
+
+/**
+ * Receives the metrics an adapter recorded since the last report, on the main thread.
+ */
+public interface MetricsListener {
+    void onMetrics(AdapterMetrics metrics);
+}
@@ -0,0 +1,148 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.os.SystemClock;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Records the timings of an adapter into histograms and hands them to the listener once per interval.
+ * The adapters only create a recorder while a listener is set and skip measuring when there is none.
+ * Filter timings are recorded on background threads, everything else on the main thread.
+ * The notifications of the adapter are counted by an observer, so notifyDataSetChanged calls made
+ * outside the adapter count as well.
+ */
+final class MetricsRecorder {
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final MetricsListener listener;
+    private final Disposable reporting;
+    private AdapterMetrics metrics = new AdapterMetrics();
+    private long intervalStart = SystemClock.uptimeMillis();
+    private long pageRequestedAt = -1;
+    private long diffStartedAt = -1;
+
+    private final RecyclerView.AdapterDataObserver notifications = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            synchronized (MetricsRecorder.this) {
+                metrics.fullRefreshCount++;
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            synchronized (MetricsRecorder.this) {
+                metrics.changedRows += itemCount;
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            synchronized (MetricsRecorder.this) {
+                metrics.insertedRows += itemCount;
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            synchronized (MetricsRecorder.this) {
+                metrics.removedRows += itemCount;
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            synchronized (MetricsRecorder.this) {
+                metrics.movedRows += itemCount;
+            }
+        }
+    };
+
+    MetricsRecorder(RecyclerView.Adapter<?> adapter, MetricsListener listener, long reportIntervalMillis) {
+        this.adapter = adapter;
+        this.listener = listener;
+        adapter.registerAdapterDataObserver(notifications);
+        this.reporting = AndroidSchedulers.mainThread()
+            .schedulePeriodicallyDirect(this::report, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        reporting.dispose();
+        adapter.unregisterAdapterDataObserver(notifications);
+    }
+
+    synchronized void recordInflate(long startNanos) {
+        metrics.inflateTimes.record(System.nanoTime() - startNanos);
+    }
+
+    synchronized void recordWarmCreate() {
+        metrics.warmCreateCount++;
+    }
+
+    /**
+     * Records a bind that started at startNanos and finished onBindData at boundNanos,
+     * with executePendingBindings taking the rest until now.
+     */
+    synchronized void recordBind(long startNanos, long boundNanos, boolean reused) {
+        metrics.bindTimes.record(boundNanos - startNanos);
+        metrics.executeBindingsTimes.record(System.nanoTime() - boundNanos);
+        if (reused) {
+            metrics.reuseCount++;
+        }
+    }
+
+    synchronized void recordFilter(long startNanos, int resultSize) {
+        metrics.filterTimes.record(System.nanoTime() - startNanos);
+        metrics.filterResultSizes.record(resultSize);
+    }
+
+    synchronized void recordDiff(long startNanos) {
+        metrics.diffTimes.record(System.nanoTime() - startNanos);
+    }
+
+    void onDiffStarted() {
+        diffStartedAt = System.nanoTime();
+    }
+
+    /**
+     * Only the diff of the last submitted list completes, earlier ones are dropped by the ListAdapter.
+     */
+    void onDiffFinished() {
+        if (diffStartedAt != -1) {
+            recordDiff(diffStartedAt);
+            diffStartedAt = -1;
+        }
+    }
+
+    void onPageRequested() {
+        pageRequestedAt = System.nanoTime();
+    }
+
+    synchronized void onItemsAdded() {
+        if (pageRequestedAt != -1) {
+            metrics.pageLoadTimes.record(System.nanoTime() - pageRequestedAt);
+            pageRequestedAt = -1;
+        }
+    }
+
+    private void report() {
+        AdapterMetrics reported;
+        synchronized (this) {
+            long now = SystemClock.uptimeMillis();
+            if (metrics.isEmpty()) {
+                intervalStart = now;
+                return;
+            }
+            reported = metrics;
+            reported.intervalMillis = now - intervalStart;
+            metrics = new AdapterMetrics();
+            intervalStart = now;
+        }
+        listener.onMetrics(reported);
+    }
+}
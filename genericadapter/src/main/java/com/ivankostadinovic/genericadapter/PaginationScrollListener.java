@@ -0,0 +1,35 @@
+package com.ivankostadinovic.genericadapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Reports the shown rows of the RecyclerView to the pagination while scrolling,
+ * so rows skipped by flings and jumps still request pages.
+ */
+final class PaginationScrollListener extends RecyclerView.OnScrollListener {
+
+    private final Pagination pagination;
+
+    PaginationScrollListener(Pagination pagination) {
+        this.pagination = pagination;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager == null || layoutManager.getChildCount() == 0) {
+            return;
+        }
+        int firstChildPosition = layoutManager.getPosition(layoutManager.getChildAt(0));
+        int lastChildPosition = layoutManager.getPosition(layoutManager.getChildAt(layoutManager.getChildCount() - 1));
+        pagination.onScrolled(Math.min(firstChildPosition, lastChildPosition), Math.max(firstChildPosition, lastChildPosition));
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            pagination.onScrollStopped();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ivankostadinovic.genericadapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Reports the shown rows of the RecyclerView to the prefetch window while scrolling.
+ * RecyclerView also reports a scroll of 0 after every layout, so the window is filled before the first scroll.
+ */
+final class PrefetchScrollListener extends RecyclerView.OnScrollListener {
+
+    private final PrefetchWindow<?> prefetchWindow;
+
+    PrefetchScrollListener(PrefetchWindow<?> prefetchWindow) {
+        this.prefetchWindow = prefetchWindow;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager == null || layoutManager.getChildCount() == 0) {
+            return;
+        }
+        int firstChildPosition = layoutManager.getPosition(layoutManager.getChildAt(0));
+        int lastChildPosition = layoutManager.getPosition(layoutManager.getChildAt(layoutManager.getChildCount() - 1));
+        prefetchWindow.onScrolled(Math.min(firstChildPosition, lastChildPosition), Math.max(firstChildPosition, lastChildPosition));
+    }
+}
@@ -0,0 +1,68 @@
+package com.ivankostadinovic.genericadapter;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps items to the layout they are shown with. The layout resource id is used as the view type,
+ * so RecyclerView keeps a separate pool of view holders for every layout.
+ * Items are matched by their class or one of its superclasses, or by a ViewTypeResolver if one is set.
+ * Items that match nothing use the layout the adapter was created with, view type DEFAULT_VIEW_TYPE.
+ */
+final class ViewTypeRegistry<T> {
+
+    static final int DEFAULT_VIEW_TYPE = 0;
+
+    private final Map<Class<?>, Integer> classLayouts = new HashMap<>();
+    private final Map<Class<?>, Integer> resolvedClassLayouts = new HashMap<>();
+    private final Map<Integer, Integer> maxRecycledViews = new HashMap<>();
+    private ViewTypeResolver<T> resolver;
+
+    void register(Class<? extends T> itemClass, int layoutResId) {
+        classLayouts.put(itemClass, layoutResId);
+        resolvedClassLayouts.clear();
+    }
+
+    void setResolver(ViewTypeResolver<T> resolver) {
+        this.resolver = resolver;
+    }
+
+    void setMaxRecycledViews(int layoutResId, int max) {
+        maxRecycledViews.put(layoutResId, max);
+    }
+
+    int getViewType(T item) {
+        if (resolver != null) {
+            return resolver.getLayoutResId(item);
+        }
+        if (classLayouts.isEmpty() || item == null) {
+            return DEFAULT_VIEW_TYPE;
+        }
+        Class<?> itemClass = item.getClass();
+        Integer layoutResId = resolvedClassLayouts.get(itemClass);
+        if (layoutResId == null) {
+            layoutResId = DEFAULT_VIEW_TYPE;
+            for (Class<?> type = itemClass; type != null; type = type.getSuperclass()) {
+                Integer registeredLayout = classLayouts.get(type);
+                if (registeredLayout != null) {
+                    layoutResId = registeredLayout;
+                    break;
+                }
+            }
+            resolvedClassLayouts.put(itemClass, layoutResId);
+        }
+        return layoutResId;
+    }
+
+    int getLayoutResId(int viewType, int defaultLayoutResId) {
+        return viewType == DEFAULT_VIEW_TYPE ? defaultLayoutResId : viewType;
+    }
+
+    void applyPoolSizes(RecyclerView.RecycledViewPool pool) {
+        for (Map.Entry<Integer, Integer> entry : maxRecycledViews.entrySet()) {
+            pool.setMaxRecycledViews(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ivankostadinovic.genericadapter;
+
+import androidx.annotation.LayoutRes;
+
+/**
+ * Returns the layout an item is shown with, for lists that mix different kinds of rows.
+ */
+public interface ViewTypeResolver<T> {
+    @LayoutRes
+    int getLayoutResId(T item);
+}
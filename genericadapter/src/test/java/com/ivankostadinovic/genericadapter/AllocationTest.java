@@ -0,0 +1,205 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.EditText;
+
+import androidx.databinding.library.baseAdapters.BR;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.ivankostadinovic.genericadapter.databinding.PlaceholderBinding;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that binding rows and scrolling allocate nothing once the adapters are warmed up.
+ * Data binding and RecyclerView allocate on their own, so each measurement is compared against the same work
+ * without the adapter: binding the data variable directly, and scrolling without the adapter's scroll listeners.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AllocationTest {
+
+    private static final int ITEM_COUNT = 1000;
+    private static final int WARM_UP = 2000;
+    private static final int ITERATIONS = 5000;
+    private static final int SCROLL_STEPS = 500;
+    //slack for the measurement itself, a single allocation per bind or scroll adds at least 16 bytes per iteration
+    private static final long MAX_EXTRA_BYTES = 1024;
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final List<String> items = createItems();
+
+    @Test
+    public void genericAdapterBindsWithoutAllocating() {
+        assertBindsWithoutAllocating(new GenericAdapter<String, PlaceholderBinding>(items, R.layout.placeholder) {
+            @Override
+            public void onBindData(String model, int position, PlaceholderBinding dataBinding) {
+            }
+
+            @Override
+            public void onItemClick(String model, int position) {
+            }
+        });
+    }
+
+    @Test
+    public void genericListAdapterBindsWithoutAllocating() {
+        assertBindsWithoutAllocating(new GenericListAdapter<String, PlaceholderBinding>(items, R.layout.placeholder, new StringCallback()) {
+            @Override
+            public void onBindData(String model, int position, PlaceholderBinding dataBinding) {
+            }
+
+            @Override
+            public void onItemClick(String model, int position) {
+            }
+        });
+    }
+
+    @Test
+    public void genericFilterAdapterBindsWithoutAllocating() {
+        assertBindsWithoutAllocating(new GenericFilterAdapter<String, PlaceholderBinding>(items, R.layout.placeholder, new EditText(context)) {
+            @Override
+            public void onBindData(String model, int position, PlaceholderBinding dataBinding) {
+            }
+
+            @Override
+            public void onItemClick(String model, int position) {
+            }
+
+            @Override
+            public boolean filter(String item, String text) {
+                return item.contains(text);
+            }
+        });
+    }
+
+    @Test
+    public void genericListFilterAdapterBindsWithoutAllocating() {
+        assertBindsWithoutAllocating(new GenericListFilterAdapter<String, PlaceholderBinding>(items, R.layout.placeholder, new EditText(context), new StringCallback()) {
+            @Override
+            public void onBindData(String model, int position, PlaceholderBinding dataBinding) {
+            }
+
+            @Override
+            public void onItemClick(String model, int position) {
+            }
+
+            @Override
+            public boolean filter(String item, String text) {
+                return item.contains(text);
+            }
+        });
+    }
+
+    @Test
+    public void scrollingDoesNotAllocate() {
+        GenericAdapter<String, PlaceholderBinding> adapter = new GenericAdapter<String, PlaceholderBinding>(items, R.layout.placeholder) {
+            @Override
+            public void onBindData(String model, int position, PlaceholderBinding dataBinding) {
+            }
+
+            @Override
+            public void onItemClick(String model, int position) {
+            }
+        };
+        adapter.setPrefetchDistance(10, Schedulers.trampoline());
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        recyclerView.setAdapter(adapter);
+        //the rows match the height of the list, so small scrolls keep showing the same rows and bind nothing
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1080, 1920);
+        scroll(recyclerView, SCROLL_STEPS);
+        long withListeners = scroll(recyclerView, SCROLL_STEPS);
+        recyclerView.clearOnScrollListeners();
+        long withoutListeners = scroll(recyclerView, SCROLL_STEPS);
+        assertAllocatedAtMost("scrolls", withListeners, withoutListeners);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertBindsWithoutAllocating(RecyclerView.Adapter<? extends RecyclerView.ViewHolder> anyAdapter) {
+        RecyclerView.Adapter<RecyclerView.ViewHolder> adapter = (RecyclerView.Adapter<RecyclerView.ViewHolder>) anyAdapter;
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(recyclerView, adapter.getItemViewType(0));
+        PlaceholderBinding binding = PlaceholderBinding.bind(holder.itemView);
+        //positions stay away from the end, binding the last rows would request a page
+        int positions = ITEM_COUNT / 2;
+        for (int i = 0; i < WARM_UP; i++) {
+            adapter.onBindViewHolder(holder, i % positions);
+            binding.setVariable(BR.data, items.get(i % positions));
+            binding.executePendingBindings();
+        }
+        long start = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            binding.setVariable(BR.data, items.get(i % positions));
+            binding.executePendingBindings();
+        }
+        long bindingOnly = allocatedBytes() - start;
+        start = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            adapter.onBindViewHolder(holder, i % positions);
+        }
+        long adapterBind = allocatedBytes() - start;
+        assertAllocatedAtMost("binds", adapterBind, bindingOnly);
+    }
+
+    /**
+     * Compares the totals, so a few bytes per iteration can't be rounded away.
+     */
+    private static void assertAllocatedAtMost(String work, long measured, long baseline) {
+        long extraBytes = measured - baseline;
+        assertTrue(extraBytes + " bytes allocated by " + work + " on top of the " + baseline + " bytes without the adapter",
+            extraBytes <= MAX_EXTRA_BYTES);
+    }
+
+    private static long scroll(RecyclerView recyclerView, int steps) {
+        long start = allocatedBytes();
+        for (int i = 0; i < steps; i++) {
+            recyclerView.scrollBy(0, 1);
+        }
+        return allocatedBytes() - start;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static List<String> createItems() {
+        List<String> items = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add("Item " + i);
+        }
+        return items;
+    }
+
+    private static class StringCallback extends DiffUtil.ItemCallback<String> {
+
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.ivankostadinovic.genericadapter;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.widget.EditText;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.ivankostadinovic.genericadapter.databinding.ScenarioListitemBinding;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs every adapter in a real RecyclerView through the scenarios apps see: a fling through a long list,
+ * typing a query while scrolling, and scrolling through pages as they are appended. For each run it reports
+ * the created and bound holders, the full rebinds, the bytes allocated on the main thread and the wall time.
+ * The results are written to build/reports/scenarios/results.json, so they can be compared between builds.
+ * The rows use scenario_listitem of the debug resources, the listitem_main layout of the app module with a data
+ * variable, because the library can't depend on the app and data binding classes are only generated for layouts
+ * of the variant, not for test resources. That is why this test is only in the debug unit tests.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ScenarioBenchmarkTest {
+
+    private static final int FLING_ITEM_COUNT = 50000;
+    private static final int FLING_ROWS_PER_FRAME = 3;
+    //small enough for DiffUtil to diff every keystroke of the ListAdapter based adapters in a moment
+    private static final int SEARCH_ITEM_COUNT = 5000;
+    private static final String QUERY = "item 42";
+    private static final int SCROLLS_PER_KEY = 20;
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGE_COUNT = 100;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final long SETTLE_TIMEOUT_MILLIS = 10000;
+    private static final File RESULTS_FILE = new File("build/reports/scenarios/results.json");
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Test
+    public void runScenarios() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (AdapterType type : AdapterType.values()) {
+            appendResult(json, type, "fling", fling(type));
+            appendResult(json, type, "search", search(type));
+            appendResult(json, type, "pages", pages(type));
+        }
+        json.setLength(json.length() - 1);
+        json.append(']');
+        File directory = RESULTS_FILE.getParentFile();
+        assertTrue(directory.isDirectory() || directory.mkdirs());
+        try (Writer writer = new FileWriter(RESULTS_FILE)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private Run fling(AdapterType type) {
+        Run run = new Run(type, createItems(0, FLING_ITEM_COUNT), 0);
+        run.start();
+        for (int row = 0; row < FLING_ITEM_COUNT; row += FLING_ROWS_PER_FRAME) {
+            run.recyclerView.scrollBy(0, HEIGHT * FLING_ROWS_PER_FRAME);
+        }
+        run.settle();
+        run.stop();
+        return run;
+    }
+
+    private Run search(AdapterType type) {
+        Run run = new Run(type, createItems(0, SEARCH_ITEM_COUNT), 0);
+        run.start();
+        //types the query and deletes it again, one key at a time, scrolling between the keys
+        for (int key = 1; key <= QUERY.length() * 2; key++) {
+            run.query(QUERY.substring(0, key <= QUERY.length() ? key : QUERY.length() * 2 - key));
+            run.settle();
+            for (int i = 0; i < SCROLLS_PER_KEY; i++) {
+                run.recyclerView.scrollBy(0, i < SCROLLS_PER_KEY / 2 ? HEIGHT : -HEIGHT);
+            }
+        }
+        run.stop();
+        assertEquals(SEARCH_ITEM_COUNT, run.adapter.getItemCount());
+        return run;
+    }
+
+    private Run pages(AdapterType type) {
+        Run run = new Run(type, createItems(0, PAGE_SIZE), PAGE_SIZE * PAGE_COUNT);
+        run.start();
+        for (int row = 0; row < PAGE_SIZE * PAGE_COUNT; row++) {
+            run.recyclerView.scrollBy(0, HEIGHT);
+            run.settle();
+        }
+        run.stop();
+        assertEquals(PAGE_SIZE * PAGE_COUNT, run.adapter.getItemCount());
+        return run;
+    }
+
+    private static void appendResult(StringBuilder json, AdapterType type, String scenario, Run run) {
+        json.append('{');
+        json.append("\"adapter\":\"").append(type.adapterName).append("\",");
+        json.append("\"scenario\":\"").append(scenario).append("\",");
+        appendField(json, "itemCount", run.adapter.getItemCount());
+        appendField(json, "createCount", run.probe.creates);
+        appendField(json, "bindCount", run.probe.binds);
+        appendField(json, "fullRebindCount", run.probe.fullRebinds);
+        appendField(json, "allocatedBytes", run.allocatedBytes);
+        appendField(json, "wallMillis", run.wallMillis);
+        json.setLength(json.length() - 1);
+        json.append("},");
+    }
+
+    private static void appendField(StringBuilder json, String name, long value) {
+        json.append('"').append(name).append("\":").append(value).append(',');
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static List<String> createItems(int from, int count) {
+        List<String> items = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            items.add("item " + i);
+        }
+        return items;
+    }
+
+    private static List<String> filterItems(List<String> items, String query) {
+        List<String> filtered = new ArrayList<>();
+        for (String item : items) {
+            if (item.contains(query)) {
+                filtered.add(item);
+            }
+        }
+        return filtered;
+    }
+
+    private enum AdapterType {
+        ADAPTER("GenericAdapter"),
+        LIST_ADAPTER("GenericListAdapter"),
+        FILTER_ADAPTER("GenericFilterAdapter"),
+        LIST_FILTER_ADAPTER("GenericListFilterAdapter");
+
+        private final String adapterName;
+
+        AdapterType(String adapterName) {
+            this.adapterName = adapterName;
+        }
+    }
+
+    /**
+     * What the adapter of a run did, and what the ListAdapter based adapters still have to display.
+     */
+    private static final class Probe extends RecyclerView.AdapterDataObserver {
+
+        private final int itemLimit;
+        private long creates;
+        private long binds;
+        private long fullRebinds;
+        private int submittedLists;
+        private int committedList;
+
+        private Probe(int itemLimit) {
+            this.itemLimit = itemLimit;
+        }
+
+        @Override
+        public void onChanged() {
+            fullRebinds++;
+        }
+
+        private List<String> nextPage(int loadedCount) {
+            return loadedCount < itemLimit ? createItems(loadedCount, Math.min(PAGE_SIZE, itemLimit - loadedCount)) : Collections.emptyList();
+        }
+
+        private Runnable onSubmitted(Runnable commitCallback) {
+            int list = ++submittedLists;
+            return () -> {
+                committedList = list;
+                if (commitCallback != null) {
+                    commitCallback.run();
+                }
+            };
+        }
+
+        private boolean isSettled() {
+            return committedList == submittedLists;
+        }
+    }
+
+    private final class Run {
+
+        private final Probe probe;
+        private final List<String> items;
+        private final EditText searchView = new EditText(context);
+        private final RecyclerView recyclerView = new RecyclerView(context);
+        private final RecyclerView.Adapter<?> adapter;
+        private long allocatedBytes;
+        private long wallMillis;
+        private long startBytes;
+        private long startNanos;
+
+        private Run(AdapterType type, List<String> items, int itemLimit) {
+            this.items = items;
+            this.probe = new Probe(itemLimit);
+            this.adapter = createAdapter(type);
+            adapter.registerAdapterDataObserver(probe);
+            recyclerView.setLayoutManager(new LinearLayoutManager(context));
+            recyclerView.setItemAnimator(null);
+            recyclerView.setAdapter(adapter);
+            settle();
+        }
+
+        private void start() {
+            startBytes = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        private void stop() {
+            wallMillis = (System.nanoTime() - startNanos) / 1000000;
+            allocatedBytes = allocatedBytes() - startBytes;
+        }
+
+        /**
+         * Filters the filter adapters by typing into their search view, and sets the matching items on the others.
+         */
+        @SuppressWarnings("unchecked")
+        private void query(String query) {
+            if (adapter instanceof GenericFilterAdapter || adapter instanceof GenericListFilterAdapter) {
+                searchView.setText(query);
+            } else if (adapter instanceof GenericListAdapter) {
+                ((GenericListAdapter<String, ScenarioListitemBinding>) adapter).setItems(filterItems(items, query));
+            } else {
+                ((GenericAdapter<String, ScenarioListitemBinding>) adapter).setItems(filterItems(items, query));
+            }
+        }
+
+        /**
+         * Runs the posted work, waits for the diffs running in the background, and lays the list out again.
+         */
+        private void settle() {
+            long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT_MILLIS;
+            ShadowLooper.idleMainLooper();
+            while (!probe.isSettled() && System.currentTimeMillis() < deadline) {
+                Thread.yield();
+                ShadowLooper.idleMainLooper();
+            }
+            assertTrue("the submitted list was not displayed in time", probe.isSettled());
+            recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            recyclerView.layout(0, 0, WIDTH, HEIGHT);
+        }
+
+        //pages are added after the bind that requested them, adding items during a layout is not allowed
+        private void loadPage(int loadedCount, ItemsConsumer consumer) {
+            List<String> page = probe.nextPage(loadedCount);
+            handler.post(() -> consumer.addItems(page));
+        }
+
+        private RecyclerView.Adapter<?> createAdapter(AdapterType type) {
+            switch (type) {
+                case ADAPTER:
+                    return new GenericAdapter<String, ScenarioListitemBinding>(items, R.layout.scenario_listitem) {
+                        @Override
+                        public void onCreateHolder(ScenarioListitemBinding dataBinding) {
+                            probe.creates++;
+                        }
+
+                        @Override
+                        public void onBindData(String model, int position, ScenarioListitemBinding dataBinding) {
+                            probe.binds++;
+                            dataBinding.txtAddress.setText(model);
+                        }
+
+                        @Override
+                        public void onItemClick(String model, int position) {
+                        }
+
+                        @Override
+                        public void loadMoreItems(int loadedCount) {
+                            loadPage(loadedCount, this::addItems);
+                        }
+                    };
+                case LIST_ADAPTER:
+                    return new GenericListAdapter<String, ScenarioListitemBinding>(items, R.layout.scenario_listitem, new StringCallback()) {
+                        @Override
+                        public void onCreateHolder(ScenarioListitemBinding dataBinding) {
+                            probe.creates++;
+                        }
+
+                        @Override
+                        public void onBindData(String model, int position, ScenarioListitemBinding dataBinding) {
+                            probe.binds++;
+                            dataBinding.txtAddress.setText(model);
+                        }
+
+                        @Override
+                        public void onItemClick(String model, int position) {
+                        }
+
+                        @Override
+                        public void loadMoreItems(int loadedCount) {
+                            loadPage(loadedCount, this::addItems);
+                        }
+
+                        @Override
+                        public void submitList(List<String> items, Runnable commitCallback) {
+                            super.submitList(items, probe.onSubmitted(commitCallback));
+                        }
+                    };
+                case FILTER_ADAPTER:
+                    return new GenericFilterAdapter<String, ScenarioListitemBinding>(items, R.layout.scenario_listitem, searchView) {
+                        @Override
+                        public void onCreateHolder(ScenarioListitemBinding dataBinding) {
+                            probe.creates++;
+                        }
+
+                        @Override
+                        public void onBindData(String model, int position, ScenarioListitemBinding dataBinding) {
+                            probe.binds++;
+                            dataBinding.txtAddress.setText(model);
+                        }
+
+                        @Override
+                        public void onItemClick(String model, int position) {
+                        }
+
+                        @Override
+                        public boolean filter(String item, String text) {
+                            return item.contains(text);
+                        }
+
+                        @Override
+                        public void loadMoreItems(int loadedCount) {
+                            loadPage(loadedCount, this::addItems);
+                        }
+                    };
+                default:
+                    return new GenericListFilterAdapter<String, ScenarioListitemBinding>(items, R.layout.scenario_listitem, searchView, new StringCallback()) {
+                        @Override
+                        public void onCreateHolder(ScenarioListitemBinding dataBinding) {
+                            probe.creates++;
+                        }
+
+                        @Override
+                        public void onBindData(String model, int position, ScenarioListitemBinding dataBinding) {
+                            probe.binds++;
+                            dataBinding.txtAddress.setText(model);
+                        }
+
+                        @Override
+                        public void onItemClick(String model, int position) {
+                        }
+
+                        @Override
+                        public boolean filter(String item, String text) {
+                            return item.contains(text);
+                        }
+
+                        @Override
+                        public void loadMoreItems(int loadedCount) {
+                            loadPage(loadedCount, this::addItems);
+                        }
+
+                        @Override
+                        public void submitList(List<String> items, Runnable commitCallback) {
+                            super.submitList(items, probe.onSubmitted(commitCallback));
+                        }
+                    };
+            }
+        }
+    }
+
+    private interface ItemsConsumer {
+        void addItems(List<String> items);
+    }
+
+    private static class StringCallback extends DiffUtil.ItemCallback<String> {
+
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+    }
+}